@@ -0,0 +1,133 @@
+package cannibals;
+/*
+Erfan Azad
+Date Updated: 11 January 2016
+File: CannibalBenchmark.java
+Description: times the searches in UUSearchProblem on growing CannibalProblem
+instances, to check how the runtime scales with the number of states.
+sweep() is the stress workload behind "CannibalDriver benchmark".
+*/
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+public class CannibalBenchmark {
+
+	// number of missionaries for each run; there are always half as many
+	// cannibals, so every instance is solvable with a boat of size 2.
+	private static final int[] SIZES = {25, 50, 100, 200, 400, 800};
+
+	// the indexed searches are cheap enough for much bigger instances
+	private static final int[] INDEXED_SIZES = {500, 1000, 2000, 4000};
+
+	// how many times each size is timed; the best run is reported
+	private static final int REPEATS = 3;
+
+	public static void main(String args[]) {
+		// warm up the JIT so the first size is not charged for compilation
+		for (int i = 0; i < 5; i++) {
+			new CannibalProblem(100, 50, 1, 0, 0, 0).breadthFirstSearch();
+		}
+
+		System.out.println("missionaries,cannibals,states,nodesExplored,pathLength,millis,nanosPerNode");
+		for (int m : SIZES) {
+			bfsScaling(m, m / 2, false);
+		}
+
+		System.out.println();
+		System.out.println("indexed bfs:");
+		System.out.println("missionaries,cannibals,states,nodesExplored,pathLength,millis,nanosPerNode");
+		for (int m : INDEXED_SIZES) {
+			bfsScaling(m, m / 2, true);
+		}
+	}
+
+	// runs bfs, memoizing dfs and (parallel) ids on problems with m missionaries, m / 2
+	//  cannibals and the given boat, and prints one csv row per search. (With as
+	//  many cannibals as missionaries almost every state is illegal, which makes
+	//  a poor stress test.) ids is exponential in the solution depth, so it is
+	//  only run up to idsLimit missionaries.
+	public static void sweep(int boatSize, int[] missionaries, int idsLimit, int maxDepth) {
+		System.out.println("algorithm,boatSize,missionaries,cannibals,pathLength,"
+				+ "nodesExplored,maxMemory,millis,nodesPerSec,peakHeapMB");
+		for (int m : missionaries) {
+			CannibalProblem mcProblem = new CannibalProblem(m, m / 2, 1, 0, 0, 0, boatSize);
+			runMeasured("bfs", mcProblem, m, m / 2, maxDepth);
+			runMeasured("dfs-memoizing", mcProblem, m, m / 2, maxDepth);
+			if (m <= idsLimit) {
+				runMeasured("ids", mcProblem, m, m / 2, maxDepth);
+				runMeasured("ids-parallel", mcProblem, m, m / 2, maxDepth);
+			}
+		}
+	}
+
+	private static void runMeasured(String algorithm, CannibalProblem mcProblem, int m, int c,
+			int maxDepth) {
+		List<MemoryPoolMXBean> heapPools = heapPools();
+		System.gc();
+		long baseline = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			pool.resetPeakUsage();
+			baseline += pool.getUsage().getUsed();
+		}
+
+		long start = System.nanoTime();
+		List<UUSearchProblem.UUSearchNode> path;
+		if (algorithm.equals("bfs")) {
+			path = mcProblem.breadthFirstSearch();
+		} else if (algorithm.equals("dfs-memoizing")) {
+			path = mcProblem.depthFirstMemoizingSearch(maxDepth);
+		} else if (algorithm.equals("ids")) {
+			path = mcProblem.IDSearch(maxDepth);
+		} else {
+			path = mcProblem.parallelIDSearch(maxDepth);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		long peak = 0;
+		for (MemoryPoolMXBean pool : heapPools) {
+			peak += pool.getPeakUsage().getUsed();
+		}
+
+		System.out.println(algorithm + "," + mcProblem.getBoatSize() + "," + m + "," + c + ","
+				+ ((path == null) ? -1 : path.size()) + ","
+				+ mcProblem.nodesExplored + "," + mcProblem.maxMemory + ","
+				+ String.format("%.3f", elapsed / 1e6) + ","
+				+ String.format("%.0f", mcProblem.nodesExplored / (elapsed / 1e9)) + ","
+				+ String.format("%.1f", Math.max(peak - baseline, 0) / (1024.0 * 1024.0)));
+	}
+
+	// the heap pools only; peak usage of these is our peak memory estimate
+	private static List<MemoryPoolMXBean> heapPools() {
+		List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+		pools.removeIf(pool -> pool.getType() != MemoryType.HEAP);
+		return pools;
+	}
+
+	// times bfs on a single (m, c) instance and prints one csv row. If bfs is
+	// linear in the number of states, nanosPerNode stays flat as m grows.
+	private static void bfsScaling(int m, int c, boolean indexed) {
+		long best = Long.MAX_VALUE;
+		int nodes = 0;
+		int pathLength = -1;
+
+		for (int r = 0; r < REPEATS; r++) {
+			CannibalProblem mcProblem = new CannibalProblem(m, c, 1, 0, 0, 0);
+
+			long start = System.nanoTime();
+			List<UUSearchProblem.UUSearchNode> path = indexed
+					? mcProblem.breadthFirstSearchIndexed() : mcProblem.breadthFirstSearch();
+			long elapsed = System.nanoTime() - start;
+
+			best = Math.min(best, elapsed);
+			nodes = mcProblem.nodesExplored;
+			pathLength = (path == null) ? -1 : path.size();
+		}
+
+		int states = (m + 1) * (c + 1) * 2;
+		System.out.println(m + "," + c + "," + states + "," + nodes + "," + pathLength + ","
+				+ String.format("%.3f", best / 1e6) + ","
+				+ String.format("%.1f", (double) best / Math.max(nodes, 1)));
+	}
+}
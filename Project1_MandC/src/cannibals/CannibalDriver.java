@@ -6,6 +6,7 @@ File: CannibalDriver.java
 Created by: Devin Balkcom
 Modfied by: Erfan Azad
 */
+import java.util.ArrayList;
 import java.util.List;
 
 public class CannibalDriver {
@@ -13,6 +14,17 @@ public class CannibalDriver {
 
 		final int MAXDEPTH = 5000;
 
+		// benchmark mode:  CannibalDriver benchmark [boatSize] [idsLimit]
+		//  sweeps the number of missionaries for a fixed boat size and prints csv
+		if (args.length > 0 && args[0].equals("benchmark")) {
+			int boatSize = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+			int idsLimit = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+			// no depth cutoff: the explicit-stack dfs can go as deep as the state space
+			CannibalBenchmark.sweep(boatSize, new int[]{10, 20, 40, 80, 160, 320, 640}, idsLimit,
+					Integer.MAX_VALUE);
+			return;
+		}
+
 		// interesting starting state:
 		//  8, 5, 1  (IDS slow, but uses least memory.)
 
@@ -21,17 +33,27 @@ public class CannibalDriver {
 		CannibalProblem mcProblem = new CannibalProblem(8, 5, 1, 0, 0, 0);
 
 		List<UUSearchProblem.UUSearchNode> path;
+		List<SearchStats> runs = new ArrayList<SearchStats>();
 
 
 		path = mcProblem.breadthFirstSearch();
 		System.out.println("bfs path length:  " + path.size() /* + " " + path*/);
 		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
+		System.out.println("--------");
+
+
+		path = mcProblem.bidirectionalSearch();
+		System.out.println("bidirectional bfs path length:  " + path.size());
+		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
 		System.out.println("--------");
 
 
 		path = mcProblem.depthFirstMemoizingSearch(MAXDEPTH);
 		System.out.println("dfs memoizing path length:" + path.size());
 		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
 //		System.out.println(path);
 		System.out.println("--------");
 
@@ -39,6 +61,7 @@ public class CannibalDriver {
 		path = mcProblem.depthFirstPathCheckingSearch(MAXDEPTH);
 		System.out.println("dfs path checking path length:" + path.size());
 		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
 //        System.out.println(path);
 
 
@@ -46,6 +69,43 @@ public class CannibalDriver {
 		path = mcProblem.IDSearch(MAXDEPTH);
 		System.out.println("Iterative deepening (path checking) path length:" + path.size());
 		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
 
+		// again, with the shallow nodes' successors cached between iterations
+		System.out.println("--------");
+		mcProblem.enableSuccessorCache(10000);
+		path = mcProblem.IDSearch(MAXDEPTH);
+		mcProblem.disableSuccessorCache();
+		System.out.println("Iterative deepening (successor cache) path length:" + path.size());
+		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
+
+
+		// the same searches over the int-encoded state space
+		System.out.println("--------");
+		path = mcProblem.breadthFirstSearchIndexed();
+		System.out.println("indexed bfs path length:  " + path.size());
+		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
+
+		System.out.println("--------");
+		path = mcProblem.depthFirstMemoizingSearchIndexed(MAXDEPTH);
+		System.out.println("indexed dfs memoizing path length:" + path.size());
+		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
+
+		System.out.println("--------");
+		path = mcProblem.IDSearchIndexed(MAXDEPTH);
+		System.out.println("indexed iterative deepening path length:" + path.size());
+		mcProblem.printStats();
+		runs.add(mcProblem.getLastStats());
+
+
+		// the same runs again, as csv
+		System.out.println("--------");
+		System.out.println(SearchStats.csvHeader());
+		for (SearchStats stats : runs) {
+			System.out.println(stats.toCSV());
+		}
 	}
 }
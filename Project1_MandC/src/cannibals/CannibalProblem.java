@@ -25,27 +25,82 @@ public class CannibalProblem  extends UUSearchProblem {
     private int totalMissionaries, totalCannibals;
 //    private CannibalNode startNode; // TEST : take out! there is one in UUSearchProblem
 
+    // how many people fit in the boat, and every legal boat load <m,c>
+    //  for that size (see generateBoatLoads)
+    private int boatSize;
+    private int[][] boatLoads;
+
 
     public CannibalProblem(int sm, int sc, int sb, int gm, int gc, int gb) {
         // I (djb) wrote the constructor; nothing for you to do here.
+        this(sm, sc, sb, gm, gc, gb, 2);
+    }
 
+    // the same problem with a boat that holds boatSize people
+    public CannibalProblem(int sm, int sc, int sb, int gm, int gc, int gb, int boatSize) {
+        if (boatSize < 1) {
+            throw new IllegalArgumentException("boat must hold at least one person: " + boatSize);
+        }
         startNode = new CannibalNode(sm, sc, 1, 0);
+        goalNode = new CannibalNode(gm, gc, gb, 0);
         goalm = gm;
         goalc = gc;
         goalb = gb;
         totalMissionaries = sm;
         totalCannibals = sc;
+        this.boatSize = boatSize;
+        boatLoads = generateBoatLoads(boatSize);
+
+        indexedSpace = new CannibalStateSpace();
+    }
+
+    public int getBoatSize() {
+        return boatSize;
+    }
+
+    /*
+    All the loads <m,c> the boat can carry: at least one person to row it,
+    at most boatSize people, and the missionaries in the boat must not be
+    outnumbered either. Fullest loads come first; for a boat of 2 this is
+    <2,0> <0,2> <1,1> <1,0> <0,1>, the order the hand-written version used.
+     */
+    private static int[][] generateBoatLoads(int boatSize) {
+        ArrayList<int[]> loads = new ArrayList<int[]>();
+        for (int total = boatSize; total >= 1; total--) {
+            loads.add(new int[]{total, 0});
+            loads.add(new int[]{0, total});
+            for (int m = total - 1; m >= 1; m--) {
+                int c = total - m;
+                if (m >= c) {
+                    loads.add(new int[]{m, c});
+                }
+            }
+        }
+        return loads.toArray(new int[loads.size()][]);
+    }
+
+    /*
+    A state is feasible if the number of Missionaries and Cannibals
+    is within the 0 to totalMissionaries/totalCannibals.
+     */
+    private boolean isFeasible(int m, int c) {
+        return m <= totalMissionaries && m >= 0 && c <= totalCannibals && c >= 0;
+    }
+
+    /*
+    A state is legal if it does not turn the Missionaries in to meals
+    on either side of the shore!
+     */
+    private boolean isLegal(int m, int c) {
+        int mOther = totalMissionaries - m;
+        int cOther = totalCannibals - c;
+        return !((m < c) && m > 0 || (mOther < cOther) && mOther > 0);
     }
     //====================Private CannibalNode Class========================
     // node class used by searches.  Searches themselves are implemented
     //  in UUSearchProblem.
     private class CannibalNode implements UUSearchNode {
 
-        // do not change BOAT_SIZE without considering how it affect
-        // getSuccessors.
-
-        private final static int BOAT_SIZE = 2;
-
         // how many missionaries, cannibals, and boats
         // are on the starting shore
         private int[] state;
@@ -68,75 +123,30 @@ public class CannibalProblem  extends UUSearchProblem {
             // add actions (denoted by how many missionaries and cannibals to put
             // in the boat) to current state.
 
-            //The big idea here is that im gonna make make CannibalNodes containing all the possible
-            //states (which is 5)
-            //Then I check to see if they are 1)Feasible and 2)Legal each of them that meet those conditions
-            //will be added to the final list that is returned....
-            // (dropping the mic!: https://i.ytimg.com/vi/AZfWwZZoN3o/maxresdefault.jpg)
+            //The boat loads are generated once per problem (see generateBoatLoads), so
+            //here I just move each load across and keep the states that are
+            //1)Feasible and 2)Legal
 
             ArrayList<UUSearchNode> successors = new ArrayList<UUSearchNode>();//this will be returned
-            ArrayList<CannibalNode> helper = new ArrayList<CannibalNode>();
-
-            if (this.state[2]==1){ //if the boat is on the starting shore
-                helper.add(new CannibalNode(this.state[0] - 2, this.state[1],
-                        this.state[2] - 1, this.depth + 1)); //subtracting <201>
-                helper.add(new CannibalNode(this.state[0], this.state[1] - 2,
-                        this.state[2] - 1, this.depth + 1)); //subtracting <021>
-                helper.add(new CannibalNode(this.state[0] - 1, this.state[1] - 1,
-                        this.state[2] - 1, this.depth + 1)); //subtracting <111>
-                helper.add(new CannibalNode(this.state[0] - 1, this.state[1],
-                        this.state[2] - 1, this.depth + 1)); //subtracting <101>
-                helper.add(new CannibalNode(this.state[0], this.state[1] - 1,
-                        this.state[2] - 1, this.depth + 1)); //subtracting <011>
-            }else{ //if the boat is on the opposite shore
-                helper.add(new CannibalNode(this.state[0] + 2, this.state[1],
-                        this.state[2] + 1, this.depth + 1)); //adding <201>
-                helper.add(new CannibalNode(this.state[0], this.state[1] + 2,
-                        this.state[2] + 1, this.depth + 1)); //adding <021>
-                helper.add(new CannibalNode(this.state[0] + 1, this.state[1] + 1,
-                        this.state[2] + 1, this.depth + 1)); //adding <111>
-                helper.add(new CannibalNode(this.state[0] + 1, this.state[1],
-                        this.state[2] + 1, this.depth + 1)); //adding <101>
-                helper.add(new CannibalNode(this.state[0], this.state[1] + 1,
-                        this.state[2] + 1, this.depth + 1)); //adding <011>
-            }
 
-            //now we check for feasibility and legality
-            for(CannibalNode n : helper){
-                if(isFeasibleState(n.state) && isLegalState(n.state)){
-                    successors.add(n);
+            // the boat takes people away from the shore it is on
+            int sign = (this.state[2] == 1) ? -1 : 1;
+            for (int[] load : boatLoads) {
+                int m = this.state[0] + sign * load[0];
+                int c = this.state[1] + sign * load[1];
+                if (isFeasible(m, c) && isLegal(m, c)) {
+                    successors.add(new CannibalNode(m, c, 1 - this.state[2], this.depth + 1));
                 }
             }
             return successors;
         }
 
 
-        /*
-        A state is feasible if the number of Missionaries and Cannibals
-        is within the 0 to totalMissionaries/totalCannibals.
-         */
-        private boolean isFeasibleState(int[] state){
-            if((state[0] <= totalMissionaries && state[0] >= 0)&&(state[1] <= totalCannibals && state[1] >= 0)) {
-                return true;
-            }
-            return false;
-        }
-
-        /*
-        A state is legal if it does not turn the Missionaries in to meals
-        on either side of the shore!
-         */
-        private boolean isLegalState(int[] state){
-            int[] stateOtherSide = new int[3];
-            stateOtherSide[0] = totalMissionaries - state[0];
-            stateOtherSide[1] = totalCannibals - state[1];
-            stateOtherSide[2] = state[2]==0 ? 1 : 0;
-
-            if((state[0] < state[1]) && state[0] >0 || (stateOtherSide[0] < stateOtherSide[1]) && stateOtherSide[0] > 0) {
-                return false;
-            }else{
-                return true;
-            }
+        // every boat trip can be undone by rowing the same people back, so
+        //  the states that lead here are exactly the states we can reach.
+        //  (For nodes found this way depth counts trips back from the goal.)
+        public ArrayList<UUSearchNode> getPredecessors() {
+            return getSuccessors();
         }
 
         /*@Override*/
@@ -155,7 +165,9 @@ public class CannibalProblem  extends UUSearchProblem {
 
         @Override
         public int hashCode() {
-            return state[0] * 100 + state[1] * 10 + state[2]; //Changed from : state[0] * 100 + state[1] * 10 + state[0]
+            // perfect hash over the (m, c, b) grid; the old state[0] * 100 + state[1] * 10 + state[2]
+            // collided as soon as there were more than 9 cannibals, which made hash lookups linear
+            return (state[0] * (totalCannibals + 1) + state[1]) * 2 + state[2];
         }
 
         @Override
@@ -177,6 +189,58 @@ public class CannibalProblem  extends UUSearchProblem {
     }
     //===============End of CannibalNode class===================
 
+    //====================CannibalStateSpace class========================
+    // The same problem with every <m,c,b> packed into one int:
+    //  index = (m * (totalCannibals + 1) + c) * 2 + b
+    // (the same number CannibalNode.hashCode() returns). Used by the
+    //  *Indexed searches in UUSearchProblem, which allocate nothing per state.
+    private class CannibalStateSpace implements IndexedStateSpace {
+
+        private int encode(int m, int c, int b) {
+            return (m * (totalCannibals + 1) + c) * 2 + b;
+        }
+
+        public int numStates() {
+            return (totalMissionaries + 1) * (totalCannibals + 1) * 2;
+        }
+
+        public int startIndex() {
+            CannibalNode start = (CannibalNode) startNode;
+            return encode(start.state[0], start.state[1], start.state[2]);
+        }
+
+        public boolean goalTest(int state) {
+            return state == encode(goalm, goalc, goalb);
+        }
+
+        public int maxSuccessors() {
+            return boatLoads.length;
+        }
+
+        public int successor(int state, int k) {
+            int b = state & 1;
+            int mc = state >> 1;
+            int m = mc / (totalCannibals + 1);
+            int c = mc % (totalCannibals + 1);
+
+            // the boat takes people away from the shore it is on
+            int sign = (b == 1) ? -1 : 1;
+            int mNew = m + sign * boatLoads[k][0];
+            int cNew = c + sign * boatLoads[k][1];
+            if (isFeasible(mNew, cNew) && isLegal(mNew, cNew)) {
+                return encode(mNew, cNew, 1 - b);
+            }
+            return -1;
+        }
+
+        public UUSearchNode toNode(int state, int depth) {
+            int mc = state >> 1;
+            return new CannibalNode(mc / (totalCannibals + 1), mc % (totalCannibals + 1),
+                    state & 1, depth);
+        }
+    }
+    //===============End of CannibalStateSpace class===================
+
     public static void main(String[] args){
 
         System.out.println("====Testing CannibalProblem class====");
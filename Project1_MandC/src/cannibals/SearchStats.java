@@ -0,0 +1,271 @@
+package cannibals;
+/*
+Erfan Azad
+Date Updated: 11 January 2016
+File: SearchStats.java
+Description: performance numbers for one run of a search in UUSearchProblem.
+UUSearchProblem fills one of these in during every search (see getLastStats),
+and it can be written out as a csv row or a json object, so runs can be
+compared without parsing printStats output.
+*/
+import java.util.Arrays;
+import java.util.Locale;
+
+public class SearchStats {
+
+	// which search produced these numbers (e.g. "bfs", "ids")
+	private String algorithm;
+
+	private long startNanos;
+	private long wallTimeNanos;
+	// time spent inside getSuccessors/getPredecessors (0 for the indexed
+	//  searches, whose successor function is too cheap to time per call)
+	private long successorTimeNanos;
+
+	private long nodesExplored;
+	private long maxMemory;
+	private long goalTests;
+	// successors thrown away because they were already visited, queued or on the path
+	private long duplicateHits;
+	private long successorsGenerated;
+	// successor cache lookups by the depth-first searches (0 when the cache is off)
+	private long cacheHits;
+	private long cacheMisses;
+	// number of depth-limited passes (ids), 1 for everything else
+	private int iterations;
+
+	// number of moves in the solution, -1 if no solution was found
+	private int solutionDepth;
+
+	// depthCounts[d] = nodes explored at depth d (summed over ids iterations)
+	private long[] depthCounts = new long[16];
+	private int maxDepthSeen = -1;
+
+	public SearchStats(String algorithm) {
+		this.algorithm = algorithm;
+		this.solutionDepth = -1;
+		this.iterations = 1;
+		this.startNanos = System.nanoTime();
+	}
+
+	//================updated by the searches================
+
+	void nodeExplored(int depth) {
+		nodesExplored++;
+		if (depth >= depthCounts.length) {
+			depthCounts = Arrays.copyOf(depthCounts, Math.max(depthCounts.length * 2, depth + 1));
+		}
+		depthCounts[depth]++;
+		maxDepthSeen = Math.max(maxDepthSeen, depth);
+	}
+
+	void memory(long currentMemory) {
+		maxMemory = Math.max(maxMemory, currentMemory);
+	}
+
+	void goalTested() {
+		goalTests++;
+	}
+
+	void duplicate() {
+		duplicateHits++;
+	}
+
+	void successorsGenerated(int count, long nanos) {
+		successorsGenerated += count;
+		successorTimeNanos += nanos;
+	}
+
+	void cacheHit() {
+		cacheHits++;
+	}
+
+	void cacheMiss() {
+		cacheMisses++;
+	}
+
+	void iteration() {
+		iterations++;
+	}
+
+	// adds the counts of a part of the same search (a parallel worker) to this one
+	void merge(SearchStats other) {
+		nodesExplored += other.nodesExplored;
+		maxMemory = Math.max(maxMemory, other.maxMemory);
+		goalTests += other.goalTests;
+		duplicateHits += other.duplicateHits;
+		successorsGenerated += other.successorsGenerated;
+		successorTimeNanos += other.successorTimeNanos;
+		cacheHits += other.cacheHits;
+		cacheMisses += other.cacheMisses;
+		if (other.maxDepthSeen >= depthCounts.length) {
+			depthCounts = Arrays.copyOf(depthCounts, other.maxDepthSeen + 1);
+		}
+		for (int d = 0; d <= other.maxDepthSeen; d++) {
+			depthCounts[d] += other.depthCounts[d];
+		}
+		maxDepthSeen = Math.max(maxDepthSeen, other.maxDepthSeen);
+	}
+
+	void finish(int pathLength) {
+		wallTimeNanos = System.nanoTime() - startNanos;
+		solutionDepth = pathLength - 1; // a null path comes in as 0 nodes
+	}
+
+	//================read back by the caller=================
+
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	public long getWallTimeNanos() {
+		return wallTimeNanos;
+	}
+
+	public long getSuccessorTimeNanos() {
+		return successorTimeNanos;
+	}
+
+	public long getNodesExplored() {
+		return nodesExplored;
+	}
+
+	public long getMaxMemory() {
+		return maxMemory;
+	}
+
+	public long getGoalTests() {
+		return goalTests;
+	}
+
+	public long getDuplicateHits() {
+		return duplicateHits;
+	}
+
+	public long getSuccessorsGenerated() {
+		return successorsGenerated;
+	}
+
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public int getSolutionDepth() {
+		return solutionDepth;
+	}
+
+	// copy of the per-depth histogram, index = depth
+	public long[] getDepthHistogram() {
+		return Arrays.copyOf(depthCounts, maxDepthSeen + 1);
+	}
+
+	// successors generated per node expanded
+	public double averageBranchingFactor() {
+		return (nodesExplored == 0) ? 0 : (double) successorsGenerated / nodesExplored;
+	}
+
+	// the b* of a uniform tree of the solution depth holding as many nodes as
+	//  we explored:  N = 1 + b* + b*^2 + ... + b*^d  (Russell & Norvig 3.6.1).
+	//  NaN if there is no solution, or it is the start node itself.
+	public double effectiveBranchingFactor() {
+		int d = solutionDepth;
+		if (d < 1 || nodesExplored < 1) {
+			return Double.NaN;
+		}
+		double lo = 0;
+		double hi = Math.max(nodesExplored, 1);
+		for (int i = 0; i < 100; i++) {
+			double mid = (lo + hi) / 2;
+			if (treeSize(mid, d) < nodesExplored) {
+				lo = mid;
+			} else {
+				hi = mid;
+			}
+		}
+		return (lo + hi) / 2;
+	}
+
+	private static double treeSize(double b, int d) {
+		double total = 1;
+		double level = 1;
+		for (int i = 1; i <= d && total < Double.MAX_VALUE; i++) {
+			level *= b;
+			total += level;
+		}
+		return total;
+	}
+
+	//================export=================================
+
+	public static String csvHeader() {
+		return "algorithm,wallTimeMillis,successorTimeMillis,nodesExplored,maxMemory,goalTests,"
+				+ "duplicateHits,successorsGenerated,cacheHits,cacheMisses,iterations,solutionDepth,"
+				+ "effectiveBranchingFactor,depthHistogram";
+	}
+
+	// one csv row matching csvHeader(); the histogram is a single
+	//  field with the counts separated by ';'
+	public String toCSV() {
+		StringBuilder histogram = new StringBuilder();
+		for (int d = 0; d <= maxDepthSeen; d++) {
+			if (d > 0) {
+				histogram.append(';');
+			}
+			histogram.append(depthCounts[d]);
+		}
+		return algorithm + "," + millis(wallTimeNanos) + "," + millis(successorTimeNanos) + ","
+				+ nodesExplored + "," + maxMemory + "," + goalTests + ","
+				+ duplicateHits + "," + successorsGenerated + "," + cacheHits + "," + cacheMisses + ","
+				+ iterations + ","
+				+ solutionDepth + "," + number(effectiveBranchingFactor()) + "," + histogram;
+	}
+
+	public String toJSON() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"algorithm\":\"").append(algorithm).append('"')
+				.append(",\"wallTimeMillis\":").append(millis(wallTimeNanos))
+				.append(",\"successorTimeMillis\":").append(millis(successorTimeNanos))
+				.append(",\"nodesExplored\":").append(nodesExplored)
+				.append(",\"maxMemory\":").append(maxMemory)
+				.append(",\"goalTests\":").append(goalTests)
+				.append(",\"duplicateHits\":").append(duplicateHits)
+				.append(",\"successorsGenerated\":").append(successorsGenerated)
+				.append(",\"cacheHits\":").append(cacheHits)
+				.append(",\"cacheMisses\":").append(cacheMisses)
+				.append(",\"iterations\":").append(iterations)
+				.append(",\"solutionDepth\":").append(solutionDepth)
+				.append(",\"effectiveBranchingFactor\":");
+		double ebf = effectiveBranchingFactor();
+		json.append(Double.isNaN(ebf) ? "null" : number(ebf));
+		json.append(",\"depthHistogram\":[");
+		for (int d = 0; d <= maxDepthSeen; d++) {
+			if (d > 0) {
+				json.append(',');
+			}
+			json.append(depthCounts[d]);
+		}
+		json.append("]}");
+		return json.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toJSON();
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+	private static String number(double x) {
+		return String.format(Locale.ROOT, "%.4f", x);
+	}
+}
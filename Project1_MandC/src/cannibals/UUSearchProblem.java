@@ -9,12 +9,19 @@ Modfied by: Erfan Azad
 */
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class UUSearchProblem {
 
@@ -25,63 +32,254 @@ public abstract class UUSearchProblem {
 	protected int nodesExplored;
 	protected int maxMemory;
 
+	// the fuller record of the last search (timings, goal tests, duplicates,
+	//  per-depth counts); see getLastStats
+	protected SearchStats stats = new SearchStats("none");
+
+	// optional bounded cache of getSuccessors results for the depth-first
+	//  searches; null when disabled (see enableSuccessorCache)
+	private SuccessorCache successorCache;
+
 	protected UUSearchNode startNode;
 
+	// the goal node, for problems that can build it directly (needed by
+	//  bidirectionalSearch); null when the goal is only known through goalTest
+	protected UUSearchNode goalNode;
+
+	// optional compact view of the same problem, used by the *Indexed searches.
+	//  problems that can number their states should set this in the constructor.
+	protected IndexedStateSpace indexedSpace;
+
 	//===============UUSearchNode Interface================
 	protected interface UUSearchNode {
 		public ArrayList<UUSearchNode> getSuccessors();
+
+		// the nodes this node can be reached from in one step; only needed
+		//  by the backward half of bidirectionalSearch
+		public ArrayList<UUSearchNode> getPredecessors();
 		public boolean goalTest();
 		public int getDepth();
 
     }
 	//=====================================================
 
+	//===============IndexedStateSpace Interface===========
+	// Every state is a single int in [0, numStates()), so the searches can keep
+	//  visited and parent information in primitive arrays and never allocate a
+	//  node object per explored state. Nodes are only built for the final path.
+	protected interface IndexedStateSpace {
+		public int numStates();
+		public int startIndex();
+		public boolean goalTest(int state);
+
+		// upper bound on the number of successors of any state
+		public int maxSuccessors();
+
+		// the k-th candidate successor of state (0 <= k < maxSuccessors()),
+		//  or -1 if that action is not legal from state
+		public int successor(int state, int k);
+
+		public UUSearchNode toNode(int state, int depth);
+	}
+	//=====================================================
+
 	// breadthFirstSearch:  return a list of connecting Nodes, or null
 	// no parameters, since start and goal descriptions are problem-dependent.
 	//  therefore, constructor of specific problems should set up start
 	//  and goal conditions, etc.
 
 	public List<UUSearchNode> breadthFirstSearch(){
-        resetStats();
+        startStats("bfs");
         // A hashset to contain the explored nodes
         HashSet<UUSearchNode> explored = new HashSet<UUSearchNode>();
         // A hashmap to contain the relation between the children and their parents
         HashMap<UUSearchNode, UUSearchNode> relations = new HashMap<UUSearchNode, UUSearchNode>();
-        // A queue to hold the nodes to be explored next
-        Queue<UUSearchNode> frontier = new LinkedList<UUSearchNode>();
+        // A queue to hold the nodes to be explored next (indexed, so contains() is O(1))
+        IndexedFrontier frontier = new IndexedFrontier();
 
         //check if the startnode is the goal node, if yes return the path
-        if(startNode.goalTest()){
+        if(isGoal(startNode)){
             relations.put(startNode, null);
-            return backchain(startNode,relations);
+            return finishStats(backchain(startNode,relations));
         }else{ //start searching
             frontier.add(startNode);
             relations.put(startNode, null);
 
             while(!frontier.isEmpty()){
+                UUSearchNode n = frontier.poll();//pop
                 // keep track of stats; these calls charge for the current node
                 updateMemory(explored.size());
-                incrementNodeCount();
-
-                UUSearchNode n = frontier.poll();//pop
+                incrementNodeCount(n.getDepth());
                 explored.add(n);
 
-                List<UUSearchNode> children = n.getSuccessors(); //get all its children
+                List<UUSearchNode> children = expand(n); //get all its children
                 for(UUSearchNode child: children){
-                    if(!explored.contains(child) && !frontier.contains(child)){
-                        if(child.goalTest()){
+                    if(explored.contains(child) || frontier.contains(child)){
+                        recordDuplicate();
+                    }else{
+                        if(isGoal(child)){
                             relations.put(child,n);
-                            return backchain(child, relations);
+                            return finishStats(backchain(child, relations));
                         }
                         relations.put(child, n);
                         frontier.add(child);
                     }
                 }
             }
-            return null; // failure to find the goal (goal does not exist!)
+            return finishStats(null); // failure to find the goal (goal does not exist!)
         }
 	}
 
+	//===============IndexedFrontier class=================
+	// FIFO queue of nodes plus a hash index of its contents, so that
+	// add, poll and contains are all O(1). A plain LinkedList.contains()
+	// is a linear scan, which made bfs quadratic in the number of states.
+	private static class IndexedFrontier {
+		private final ArrayDeque<UUSearchNode> queue = new ArrayDeque<UUSearchNode>();
+		private final HashSet<UUSearchNode> index = new HashSet<UUSearchNode>();
+
+		public boolean add(UUSearchNode node) {
+			if (!index.add(node)) {
+				return false; // already waiting in the frontier
+			}
+			queue.add(node);
+			return true;
+		}
+
+		public UUSearchNode poll() {
+			UUSearchNode node = queue.poll();
+			if (node != null) {
+				index.remove(node);
+			}
+			return node;
+		}
+
+		public boolean contains(UUSearchNode node) {
+			return index.contains(node);
+		}
+
+		public boolean isEmpty() {
+			return queue.isEmpty();
+		}
+
+		public int size() {
+			return queue.size();
+		}
+	}
+	//=====================================================
+
+	// bidirectional breadth-first search: grows one bfs tree forward from the
+	//  start and one backward (through getPredecessors) from goalNode, always
+	//  expanding a whole layer of the smaller side, and stops once the trees
+	//  meet. Explores about 2 * b^(d/2) nodes instead of b^d. Returns the same
+	//  goal-to-start path as breadthFirstSearch, or null.
+	public List<UUSearchNode> bidirectionalSearch() {
+		startStats("bidirectional-bfs");
+		if (goalNode == null) {
+			throw new UnsupportedOperationException(getClass().getSimpleName()
+					+ " does not provide a goal node");
+		}
+		if (isGoal(startNode)) {
+			List<UUSearchNode> path = new ArrayList<UUSearchNode>();
+			path.add(startNode);
+			return finishStats(path);
+		}
+
+		// child -> parent for the forward tree, node -> next node towards
+		//  the goal for the backward tree
+		HashMap<UUSearchNode, UUSearchNode> forward = new HashMap<UUSearchNode, UUSearchNode>();
+		HashMap<UUSearchNode, UUSearchNode> backward = new HashMap<UUSearchNode, UUSearchNode>();
+		ArrayList<UUSearchNode> forwardLayer = new ArrayList<UUSearchNode>();
+		ArrayList<UUSearchNode> backwardLayer = new ArrayList<UUSearchNode>();
+
+		forward.put(startNode, null);
+		forwardLayer.add(startNode);
+		backward.put(goalNode, null);
+		backwardLayer.add(goalNode);
+
+		// depth of the current layer on each side
+		int forwardDepth = 0;
+		int backwardDepth = 0;
+
+		while (!forwardLayer.isEmpty() && !backwardLayer.isEmpty()) {
+			UUSearchNode meeting;
+			if (forwardLayer.size() <= backwardLayer.size()) {
+				ArrayList<UUSearchNode> next = new ArrayList<UUSearchNode>();
+				meeting = expandLayer(forwardLayer, next, forward, backward, true, forwardDepth++);
+				forwardLayer = next;
+			} else {
+				ArrayList<UUSearchNode> next = new ArrayList<UUSearchNode>();
+				meeting = expandLayer(backwardLayer, next, backward, forward, false, backwardDepth++);
+				backwardLayer = next;
+			}
+			if (meeting != null) {
+				return finishStats(joinPaths(meeting, forward, backward));
+			}
+		}
+		return finishStats(null); // one side ran out of nodes: no path
+	}
+
+	// expands every node of layer in one direction, putting the new nodes in
+	//  next. The whole layer is finished before returning, so that among all
+	//  the places the two trees touch we can return the one on the shortest
+	//  path (the meeting points can sit at different depths of the other tree).
+	//  depth is the distance of the layer from its own side's root.
+	private UUSearchNode expandLayer(List<UUSearchNode> layer, List<UUSearchNode> next,
+			HashMap<UUSearchNode, UUSearchNode> own, HashMap<UUSearchNode, UUSearchNode> other,
+			boolean isForward, int depth) {
+		UUSearchNode best = null;
+		int bestLength = Integer.MAX_VALUE;
+
+		for (UUSearchNode n : layer) {
+			// keep track of stats; these calls charge for the current node
+			updateMemory(own.size() + other.size());
+			incrementNodeCount(depth);
+
+			List<UUSearchNode> neighbours = isForward ? expand(n) : expandBackward(n);
+			for (UUSearchNode child : neighbours) {
+				if (own.containsKey(child)) {
+					recordDuplicate();
+					continue;
+				}
+				own.put(child, n);
+				next.add(child);
+				if (other.containsKey(child)) {
+					// every node in layer is at the same depth, so only the
+					//  other side's part of the path can differ
+					int length = chainLength(child, other);
+					if (length < bestLength) {
+						best = child;
+						bestLength = length;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	// number of links from node to the root of its tree
+	private int chainLength(UUSearchNode node, HashMap<UUSearchNode, UUSearchNode> links) {
+		int length = 0;
+		for (UUSearchNode n = links.get(node); n != null; n = links.get(n)) {
+			length++;
+		}
+		return length;
+	}
+
+	// goal ... meeting ... start, like backchain
+	private List<UUSearchNode> joinPaths(UUSearchNode meeting,
+			HashMap<UUSearchNode, UUSearchNode> forward, HashMap<UUSearchNode, UUSearchNode> backward) {
+		List<UUSearchNode> path = new ArrayList<UUSearchNode>();
+		for (UUSearchNode n = backward.get(meeting); n != null; n = backward.get(n)) {
+			path.add(n); // meeting -> goal, without the meeting node
+		}
+		Collections.reverse(path);
+		for (UUSearchNode n = meeting; n != null; n = forward.get(n)) {
+			path.add(n); // meeting -> start
+		}
+		return path;
+	}
+
 	// backchain should only be used by bfs, not the recursive dfs
 	private List<UUSearchNode> backchain(UUSearchNode node,
 			HashMap<UUSearchNode, UUSearchNode> visited) {
@@ -96,113 +294,748 @@ public abstract class UUSearchProblem {
 	}
 
 	public List<UUSearchNode> depthFirstMemoizingSearch(int maxDepth) {
-		resetStats();
+		startStats("dfs-memoizing");
 		// You will write this method
         HashSet<UUSearchNode> visited = new HashSet<UUSearchNode>();
-        return dfsrm(startNode, visited, 0, maxDepth);
+        return finishStats(dfsrm(startNode, visited, maxDepth, new SearchStack()));
 	}
 
-//	 recursive memoizing dfs. Private, because it has the extra
-//	 parameters needed for recursion.
-	private List<UUSearchNode> dfsrm(UUSearchNode currentNode, HashSet<UUSearchNode> visited,
-			int depth, int maxDepth) { //NOTE: used a HashSet instead of HashMap
+//	 memoizing dfs with an explicit stack instead of recursion, so the depth
+//	 is limited by the heap and not by the thread stack. Explores the nodes in
+//	 the same order, and charges the same stats, as the old recursive version.
+	private List<UUSearchNode> dfsrm(UUSearchNode root, HashSet<UUSearchNode> visited,
+			int maxDepth, SearchStack stack) { //NOTE: used a HashSet instead of HashMap
+		stack.clear();
 
-		// keep track of stats; these calls charge for the current node
+		// keep track of stats; these calls charge for the root
 		updateMemory(visited.size());
-		incrementNodeCount();
-
-        List<UUSearchNode> path = null;
-        visited.add(currentNode); //mark the current node as visited
-        if(currentNode.goalTest()){ //if the current node is the goal (basecase 1)
-            path = new ArrayList<UUSearchNode>();
-            path.add(currentNode);
-            return path;
-        }else if(depth > maxDepth){ //if we have reached the cutoff depth (basecase 2)
-//            System.out.println("Exceeded Maximum depth of " + maxDepth + " with NO RESULT");
-            return null;
-        }else{ // (recursive case)
-            //getting current nodes children
-            ArrayList<UUSearchNode> children = currentNode.getSuccessors();
-            for (UUSearchNode child : children){
-                // if not yet visited then visit it!
-                if(!visited.contains(child)) {
-                    path = dfsrm(child, visited, depth + 1, maxDepth); //(Here be recursion!)
-                    if(path != null) {// not failure or cutoff
-                        //we have found the goal, add currentNode to the path and pass it on!
-                        path.add(currentNode);
-                        return path;
-                    }
-                }
-            }
-            return null; // failure
-        }
+		incrementNodeCount(0);
+		visited.add(root); //mark the root as visited
+		stack.push(root);
+		if (isGoal(root)) {
+			return stack.toPath();
+		}
+
+		while (!stack.isEmpty()) {
+			//if we have reached the cutoff depth, or tried every child: back up
+			if (stack.depth() > maxDepth || !stack.hasNextChild()) {
+				stack.pop();
+				continue;
+			}
+			UUSearchNode child = stack.nextChild();
+			if (visited.contains(child)) {
+				recordDuplicate();
+				continue;
+			}
+
+			// keep track of stats; these calls charge for the child
+			updateMemory(visited.size());
+			visited.add(child); //not yet visited, so visit it!
+			stack.push(child);
+			incrementNodeCount(stack.depth());
+			if (isGoal(child)) {
+				return stack.toPath();
+			}
+		}
+		return null; // failure
 	}
 
 
-//    set up the iterative deepening search, and make use of dfspc
+//    set up the iterative deepening search, and make use of dfspc. The stack
+//    and the path set are allocated once and reused for every depth limit.
 	public List<UUSearchNode> IDSearch(int maxDepth) {
-		resetStats();
+		startStats("ids");
 		// you write this method
+        SearchStack stack = new SearchStack();
+        HashSet<UUSearchNode> currentPath = new HashSet<UUSearchNode>();
         List<UUSearchNode> path;
         for (int depth=0; depth<maxDepth; depth++){
 //            System.out.println("Depth#: " + depth);
-            path = depthFirstPathCheckingSearch(depth);
+            if (depth > 0) {
+                resetStats(); // nodesExplored/maxMemory are those of the last iteration, as before;
+                stats.iteration(); //  getLastStats() adds up all of them
+            }
+            currentPath.clear();
+            path = dfsrpc(startNode, currentPath, depth, stack);
             if (path != null){
-                return path;
+                return finishStats(path);
             }
         }
-        return null; //failure
+        return finishStats(null); //failure
 	}
 
 	// set up the depth-first-search (path-checking version),
 	//  but call dfspc to do the real work
 	public List<UUSearchNode> depthFirstPathCheckingSearch(int maxDepth) {
-		resetStats();
+		startStats("dfs-path-checking");
 		// I wrote this method for you.  Nothing to do.
 		HashSet<UUSearchNode> currentPath = new HashSet<UUSearchNode>();
-		return dfsrpc(startNode, currentPath, 0, maxDepth);
+		return finishStats(dfsrpc(startNode, currentPath, maxDepth, new SearchStack()));
 	}
 
-	// recursive path-checking dfs. Private, because it has the extra
-	// parameters needed for recursion.
-	private List<UUSearchNode> dfsrpc(UUSearchNode currentNode, HashSet<UUSearchNode> currentPath,
-			int depth, int maxDepth) {
+	// path-checking dfs with an explicit stack. Same visiting order and stats
+	// as the old recursive version; currentPath always holds the stack contents.
+	private List<UUSearchNode> dfsrpc(UUSearchNode root, HashSet<UUSearchNode> currentPath,
+			int maxDepth, SearchStack stack) {
+		stack.clear();
 
-        // keep track of stats; these calls charge for the current node
+        // keep track of stats; these calls charge for the root
         updateMemory(currentPath.size());
-        incrementNodeCount();
-
-        List<UUSearchNode> result;
-        currentPath.add(currentNode); //add currentNode to the currentPath
-        if(currentNode.goalTest()){ //if currentNode is the goal node (Base case 1)
-            result = new ArrayList<UUSearchNode>();
-            result.add(currentNode);
-            return result;
-        }else if(depth > maxDepth){ // if the cutoff depth has been reached (Base case 2)
-//            System.out.println("Exceeded Maximum depth of " + maxDepth + " with NO RESULT :(");
-            return null;
-        }else{ // (Recursion)
-            ArrayList<UUSearchNode> children = currentNode.getSuccessors();
-            for (UUSearchNode child : children){
-                if (!currentPath.contains(child)){ //if the child is not part of the current path then visit it!
-                    result = dfsrpc(child, currentPath, depth+1, maxDepth); //(Here be recursion!)
-                    if (result == null){ //failure or cutoff
-                        currentPath.remove(child);
-                    }else{
-                        result.add(currentNode);
-                        return result;
-                    }
-                }
+        incrementNodeCount(0);
+        currentPath.add(root);
+        stack.push(root);
+        if (isGoal(root)) {
+            return stack.toPath();
+        }
+
+        while (!stack.isEmpty()) {
+            // cutoff depth reached, or every child failed: take the node off the path
+            if (stack.depth() > maxDepth || !stack.hasNextChild()) {
+                currentPath.remove(stack.pop());
+                continue;
+            }
+            UUSearchNode child = stack.nextChild();
+            if (currentPath.contains(child)) {
+                recordDuplicate();
+                continue;
+            }
+
+            // keep track of stats; these calls charge for the child
+            updateMemory(currentPath.size());
+            currentPath.add(child); //not part of the current path, so visit it!
+            stack.push(child);
+            incrementNodeCount(stack.depth());
+            if (isGoal(child)) {
+                return stack.toPath();
             }
-            return null; // failure
         }
+        return null; // failure
     }
 
+	// iterative deepening that searches the subtrees below the first
+	//  PARALLEL_SPLIT_DEPTH levels in parallel on the common fork-join pool
+	public List<UUSearchNode> parallelIDSearch(int maxDepth) {
+		return parallelIDSearch(maxDepth, ForkJoinPool.commonPool());
+	}
+
+	// parallel iterative deepening. For each depth limit the top of the tree
+	//  is walked here, in the same order as dfsrpc, and every node at the split
+	//  depth becomes a SubtreeTask for the pool. The tasks keep their position
+	//  in that order: when one finds a goal, the tasks to its right give up,
+	//  and we return the path from the leftmost task that succeeded. That is
+	//  the path IDSearch returns (shallowest, then leftmost), just found sooner.
+	public List<UUSearchNode> parallelIDSearch(int maxDepth, ForkJoinPool pool) {
+		startStats("ids-parallel");
+		HashSet<UUSearchNode> prefixPath = new HashSet<UUSearchNode>();
+		ArrayList<UUSearchNode> prefix = new ArrayList<UUSearchNode>();
+		ArrayList<SubtreeTask> tasks = new ArrayList<SubtreeTask>();
+
+		for (int depth = 0; depth < maxDepth; depth++) {
+			if (depth > 0) {
+				resetStats(); // same convention as IDSearch: the last iteration
+				stats.iteration();
+			}
+			AtomicInteger found = new AtomicInteger(Integer.MAX_VALUE);
+			int splitDepth = Math.min(PARALLEL_SPLIT_DEPTH, depth + 1);
+			prefixPath.clear();
+			prefix.clear();
+			tasks.clear();
+			collectSubtrees(startNode, depth, splitDepth, prefix, prefixPath, tasks, found);
+
+			for (SubtreeTask task : tasks) {
+				pool.execute(task);
+			}
+			for (SubtreeTask task : tasks) {
+				task.join(); // tasks right of a goal return almost at once
+			}
+
+			List<UUSearchNode> path = null;
+			for (SubtreeTask task : tasks) {
+				stats.merge(task.taskStats);
+				nodesExplored += (int) task.taskStats.getNodesExplored();
+				maxMemory = (int) Math.max(maxMemory, task.taskStats.getMaxMemory());
+				if (task.index == found.get()) {
+					path = task.join();
+				}
+			}
+			if (path != null) {
+				return finishStats(path);
+			}
+		}
+		return finishStats(null); //failure
+	}
+
+	// how many levels of the tree are walked sequentially before handing
+	//  the subtrees to the pool; up to b^3 tasks per iteration
+	private static final int PARALLEL_SPLIT_DEPTH = 3;
+
+	// path-checking walk of the top splitDepth levels, in dfsrpc order. Nodes
+	//  above the split are charged to this search; each node at the split depth
+	//  becomes a task (charged to the task). A goal above the split ends the
+	//  walk, because dfsrpc would stop there too; it becomes a finished task.
+	//  Returns true if a goal was found.
+	private boolean collectSubtrees(UUSearchNode node, int maxDepth, int splitDepth,
+			ArrayList<UUSearchNode> prefix, HashSet<UUSearchNode> prefixPath,
+			List<SubtreeTask> tasks, AtomicInteger found) {
+		int depth = prefix.size();
+		prefix.add(node);
+		try {
+			if (depth == splitDepth) {
+				tasks.add(new SubtreeTask(tasks.size(), prefix, maxDepth, found, false));
+				return false;
+			}
+
+			updateMemory(prefixPath.size());
+			incrementNodeCount(depth);
+			if (isGoal(node)) {
+				found.set(tasks.size());
+				tasks.add(new SubtreeTask(tasks.size(), prefix, maxDepth, found, true));
+				return true;
+			}
+			if (depth > maxDepth) {
+				return false;
+			}
+
+			prefixPath.add(node);
+			for (UUSearchNode child : expand(node)) {
+				if (prefixPath.contains(child)) {
+					recordDuplicate();
+					continue;
+				}
+				if (collectSubtrees(child, maxDepth, splitDepth, prefix, prefixPath, tasks, found)) {
+					return true;
+				}
+			}
+			prefixPath.remove(node);
+			return false;
+		} finally {
+			prefix.remove(prefix.size() - 1);
+		}
+	}
+
+	//===============SubtreeTask class=====================
+	// one path-checking dfs below a fixed prefix (start ... subtree root), run
+	//  on a fork-join worker with its own stack, path set and stats. Returns the
+	//  goal-to-start path, or null. index is the task's position in dfsrpc
+	//  order, and found holds the smallest index that reached a goal so far.
+	private class SubtreeTask extends RecursiveTask<List<UUSearchNode>> {
+		private static final long serialVersionUID = 1L;
+
+		private final int index;
+		private final List<UUSearchNode> prefix;
+		private final int maxDepth;
+		private final AtomicInteger found;
+		private final boolean prefixIsGoal;
+		private final SearchStats taskStats = new SearchStats("ids-parallel");
+
+		public SubtreeTask(int index, List<UUSearchNode> prefix, int maxDepth,
+				AtomicInteger found, boolean prefixIsGoal) {
+			this.index = index;
+			this.prefix = new ArrayList<UUSearchNode>(prefix);
+			this.maxDepth = maxDepth;
+			this.found = found;
+			this.prefixIsGoal = prefixIsGoal;
+		}
+
+		@Override
+		protected List<UUSearchNode> compute() {
+			if (prefixIsGoal) {
+				return pathWithPrefix(new ArrayList<UUSearchNode>());
+			}
+			int rootDepth = prefix.size() - 1;
+			UUSearchNode root = prefix.get(rootDepth);
+			HashSet<UUSearchNode> currentPath = new HashSet<UUSearchNode>(prefix.subList(0, rootDepth));
+			SearchStack stack = new SearchStack(taskStats);
+
+			// same loop as dfsrpc, but charged to taskStats and offset by rootDepth
+			taskStats.memory(currentPath.size());
+			taskStats.nodeExplored(rootDepth);
+			currentPath.add(root);
+			stack.push(root);
+			taskStats.goalTested();
+			if (root.goalTest()) {
+				return succeed(stack);
+			}
+
+			while (!stack.isEmpty()) {
+				if (found.get() < index) {
+					return null; // a task to our left has the answer
+				}
+				if (rootDepth + stack.depth() > maxDepth || !stack.hasNextChild()) {
+					currentPath.remove(stack.pop());
+					continue;
+				}
+				UUSearchNode child = stack.nextChild();
+				if (currentPath.contains(child)) {
+					taskStats.duplicate();
+					continue;
+				}
+
+				taskStats.memory(currentPath.size());
+				currentPath.add(child);
+				stack.push(child);
+				taskStats.nodeExplored(rootDepth + stack.depth());
+				taskStats.goalTested();
+				if (child.goalTest()) {
+					return succeed(stack);
+				}
+			}
+			return null;
+		}
+
+		private List<UUSearchNode> succeed(SearchStack stack) {
+			found.accumulateAndGet(index, Math::min);
+			return pathWithPrefix(stack.toPath());
+		}
+
+		// subtree path (goal ... subtree root) followed by the rest of the
+		//  prefix back to the start
+		private List<UUSearchNode> pathWithPrefix(List<UUSearchNode> subtreePath) {
+			List<UUSearchNode> path = new ArrayList<UUSearchNode>(subtreePath);
+			int last = subtreePath.isEmpty() ? prefix.size() - 1 : prefix.size() - 2;
+			for (int i = last; i >= 0; i--) {
+				path.add(prefix.get(i));
+			}
+			return path;
+		}
+	}
+	//=====================================================
+
+	// keeps the successor lists of up to capacity nodes between expansions
+	//  (and between searches on this problem), evicting the least recently
+	//  used. Note that a cached successor keeps the depth it was first
+	//  generated at, so getDepth() on dfs path nodes may be off when enabled.
+	public void enableSuccessorCache(int capacity) {
+		successorCache = new SuccessorCache(capacity);
+	}
+
+	public void disableSuccessorCache() {
+		successorCache = null;
+	}
+
+	//===============SuccessorCache class==================
+	// LRU map from node to its successor list. Access-ordered LinkedHashMap
+	//  reorders itself on get, so every access is synchronized (the parallel
+	//  ids workers share one cache).
+	private static class SuccessorCache {
+		private final LinkedHashMap<UUSearchNode, ArrayList<UUSearchNode>> map;
+
+		public SuccessorCache(final int capacity) {
+			if (capacity < 1) {
+				throw new IllegalArgumentException("cache capacity must be positive: " + capacity);
+			}
+			map = new LinkedHashMap<UUSearchNode, ArrayList<UUSearchNode>>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<UUSearchNode, ArrayList<UUSearchNode>> eldest) {
+					return size() > capacity;
+				}
+			};
+		}
+
+		public synchronized ArrayList<UUSearchNode> get(UUSearchNode node) {
+			return map.get(node);
+		}
+
+		public synchronized void put(UUSearchNode node, ArrayList<UUSearchNode> successors) {
+			map.put(node, successors);
+		}
+	}
+	//=====================================================
+
+	//===============SearchStack class=====================
+	// explicit stack for the depth-first searches: each entry is a node, its
+	//  successors (generated the first time we look at them) and the index of
+	//  the next successor to try. The arrays grow by doubling and are kept when
+	//  the stack is cleared, so IDSearch reuses one stack for every depth.
+	private class SearchStack {
+		// where successor generation is charged: the search's stats, or a
+		//  parallel worker's own copy
+		private final SearchStats owner;
+
+		private UUSearchNode[] nodes = new UUSearchNode[64];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		private ArrayList<UUSearchNode>[] children = new ArrayList[64];
+		private int[] nextChild = new int[64];
+		private int size = 0;
+
+		public SearchStack() {
+			this(stats);
+		}
+
+		public SearchStack(SearchStats owner) {
+			this.owner = owner;
+		}
+
+		public void push(UUSearchNode node) {
+			if (size == nodes.length) {
+				int capacity = nodes.length * 2;
+				nodes = Arrays.copyOf(nodes, capacity);
+				children = Arrays.copyOf(children, capacity);
+				nextChild = Arrays.copyOf(nextChild, capacity);
+			}
+			nodes[size] = node;
+			children[size] = null;
+			nextChild[size] = 0;
+			size++;
+		}
+
+		public UUSearchNode pop() {
+			size--;
+			UUSearchNode node = nodes[size];
+			nodes[size] = null; // let the garbage collector have them
+			children[size] = null;
+			return node;
+		}
+
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		// depth of the node on top of the stack (the root is at depth 0)
+		public int depth() {
+			return size - 1;
+		}
+
+		public boolean hasNextChild() {
+			int top = size - 1;
+			if (children[top] == null) {
+				children[top] = expandCached(nodes[top], owner);
+			}
+			return nextChild[top] < children[top].size();
+		}
+
+		public UUSearchNode nextChild() {
+			int top = size - 1;
+			return children[top].get(nextChild[top]++);
+		}
+
+		// the path on the stack, from the top (the goal) back to the start,
+		//  which is the order the recursive searches used to build it in
+		public List<UUSearchNode> toPath() {
+			List<UUSearchNode> path = new ArrayList<UUSearchNode>(size);
+			for (int i = size - 1; i >= 0; i--) {
+				path.add(nodes[i]);
+			}
+			return path;
+		}
+
+		public void clear() {
+			Arrays.fill(nodes, 0, size, null);
+			Arrays.fill(children, 0, size, null);
+			size = 0;
+		}
+	}
+	//=====================================================
+
+	// bfs over the indexed state space: same order and stats as breadthFirstSearch,
+	//  but the queue, visited set and parent table are flat arrays.
+	public List<UUSearchNode> breadthFirstSearchIndexed() {
+		startStats("bfs-indexed");
+		IndexedStateSpace space = requireIndexedSpace();
+
+		int numStates = space.numStates();
+		int branching = space.maxSuccessors();
+		BitSet reached = new BitSet(numStates); // explored or waiting in the queue
+		int[] parent = new int[numStates];
+		int[] queue = new int[numStates]; // every state is enqueued at most once
+		int head = 0;
+		int tail = 0;
+
+		int start = space.startIndex();
+		parent[start] = -1;
+		reached.set(start);
+		if (isGoal(space, start)) {
+			return finishStats(indexedBackchain(start, parent));
+		}
+		queue[tail++] = start;
+
+		// the queue holds one bfs layer after the other; layerEnd is where the
+		//  current one stops
+		int depth = -1;
+		int layerEnd = 0;
+
+		while (head < tail) {
+			if (head == layerEnd) {
+				depth++;
+				layerEnd = tail;
+			}
+			// keep track of stats; these calls charge for the current node
+			updateMemory(head); // head == number of explored states
+			incrementNodeCount(depth);
+
+			int s = queue[head++];
+			int generated = 0;
+			for (int k = 0; k < branching; k++) {
+				int child = space.successor(s, k);
+				if (child < 0) {
+					continue;
+				}
+				generated++;
+				if (reached.get(child)) {
+					recordDuplicate();
+					continue;
+				}
+				reached.set(child);
+				parent[child] = s;
+				if (isGoal(space, child)) {
+					stats.successorsGenerated(generated, 0);
+					return finishStats(indexedBackchain(child, parent));
+				}
+				queue[tail++] = child;
+			}
+			stats.successorsGenerated(generated, 0);
+		}
+		return finishStats(null); // failure to find the goal
+	}
+
+	// memoizing dfs over the indexed state space. Uses an explicit stack of
+	//  (state, next action) pairs instead of recursion.
+	public List<UUSearchNode> depthFirstMemoizingSearchIndexed(int maxDepth) {
+		startStats("dfs-memoizing-indexed");
+		IndexedStateSpace space = requireIndexedSpace();
+
+		int numStates = space.numStates();
+		int branching = space.maxSuccessors();
+		BitSet visited = new BitSet(numStates);
+		int visitedCount = 0;
+
+		// a memoizing dfs never has a state twice on its stack
+		int[] stack = new int[indexedStackSize(maxDepth, numStates)];
+		int[] nextAction = new int[stack.length];
+
+		int top = 0;
+		stack[0] = space.startIndex();
+		nextAction[0] = 0;
+		updateMemory(visitedCount);
+		incrementNodeCount(0);
+		visited.set(stack[0]);
+		visitedCount++;
+		if (isGoal(space, stack[0])) {
+			return finishStats(indexedStackPath(stack, top));
+		}
+
+		while (top >= 0) {
+			// cutoff depth reached, or all actions tried: backtrack
+			if (top > maxDepth || nextAction[top] >= branching) {
+				top--;
+				continue;
+			}
+			int child = space.successor(stack[top], nextAction[top]++);
+			if (child < 0) {
+				continue;
+			}
+			stats.successorsGenerated(1, 0);
+			if (visited.get(child)) {
+				recordDuplicate();
+				continue;
+			}
+
+			// keep track of stats; these calls charge for the child node
+			updateMemory(visitedCount);
+			incrementNodeCount(top + 1);
+
+			top++;
+			stack[top] = child;
+			nextAction[top] = 0;
+			visited.set(child);
+			visitedCount++;
+			if (isGoal(space, child)) {
+				return finishStats(indexedStackPath(stack, top));
+			}
+		}
+		return finishStats(null); // failure
+	}
+
+	// iterative deepening over the indexed state space; the stack and the
+	//  on-path bitset are allocated once and reused for every depth limit.
+	//  Unlike IDSearch, the stats add up over all the iterations.
+	public List<UUSearchNode> IDSearchIndexed(int maxDepth) {
+		startStats("ids-indexed");
+		IndexedStateSpace space = requireIndexedSpace();
+
+		int numStates = space.numStates();
+		BitSet onPath = new BitSet(numStates);
+		int[] stack = new int[indexedStackSize(maxDepth, numStates)];
+		int[] nextAction = new int[stack.length];
+
+		for (int depth = 0; depth < maxDepth; depth++) {
+			if (depth > 0) {
+				stats.iteration();
+			}
+			int top = pathCheckingIndexed(space, depth, stack, nextAction, onPath);
+			if (top >= 0) {
+				return finishStats(indexedStackPath(stack, top));
+			}
+		}
+		return finishStats(null); // failure
+	}
+
+	// one path-checking dfs with the given depth limit. Returns the stack
+	//  index of the goal (the path is stack[0..top]), or -1 on failure.
+	//  onPath is left empty when the search fails.
+	private int pathCheckingIndexed(IndexedStateSpace space, int maxDepth,
+			int[] stack, int[] nextAction, BitSet onPath) {
+		int branching = space.maxSuccessors();
+
+		int top = 0;
+		stack[0] = space.startIndex();
+		nextAction[0] = 0;
+		updateMemory(top);
+		incrementNodeCount(0);
+		onPath.set(stack[0]);
+		if (isGoal(space, stack[0])) {
+			onPath.clear(stack[0]);
+			return top;
+		}
+
+		while (top >= 0) {
+			if (top > maxDepth || nextAction[top] >= branching) {
+				onPath.clear(stack[top]); // failure or cutoff: off the path again
+				top--;
+				continue;
+			}
+			int child = space.successor(stack[top], nextAction[top]++);
+			if (child < 0) {
+				continue;
+			}
+			stats.successorsGenerated(1, 0);
+			if (onPath.get(child)) {
+				recordDuplicate();
+				continue;
+			}
+
+			// keep track of stats; these calls charge for the child node
+			updateMemory(top + 1);
+			incrementNodeCount(top + 1);
+
+			top++;
+			stack[top] = child;
+			nextAction[top] = 0;
+			onPath.set(child);
+			if (isGoal(space, child)) {
+				onPath.clear(0, space.numStates()); // leave it clean for the caller
+				return top;
+			}
+		}
+		return -1;
+	}
+
+	private IndexedStateSpace requireIndexedSpace() {
+		if (indexedSpace == null) {
+			throw new UnsupportedOperationException(getClass().getSimpleName()
+					+ " does not provide an indexed state space");
+		}
+		return indexedSpace;
+	}
+
+	// stack depth needed for a search with the given cutoff: never more than
+	//  maxDepth + 2 entries, and never more than one entry per state
+	private static int indexedStackSize(int maxDepth, int numStates) {
+		return (int) Math.min((long) maxDepth + 2, (long) numStates + 1);
+	}
+
+	// same as backchain: the path runs from the goal back to the start
+	private List<UUSearchNode> indexedBackchain(int state, int[] parent) {
+		int length = 0;
+		for (int s = state; s != -1; s = parent[s]) {
+			length++;
+		}
+		List<UUSearchNode> path = new ArrayList<UUSearchNode>(length);
+		int depth = length - 1;
+		for (int s = state; s != -1; s = parent[s]) {
+			path.add(indexedSpace.toNode(s, depth--));
+		}
+		return path;
+	}
+
+	// turns stack[0..top] into a path, again from the goal back to the start
+	private List<UUSearchNode> indexedStackPath(int[] stack, int top) {
+		List<UUSearchNode> path = new ArrayList<UUSearchNode>(top + 1);
+		for (int i = top; i >= 0; i--) {
+			path.add(indexedSpace.toNode(stack[i], i));
+		}
+		return path;
+	}
+
 	protected void resetStats() {
 		nodesExplored = 0;
 		maxMemory = 0;
 	}
 
+	// resets the counters and starts a fresh SearchStats for a new search
+	protected void startStats(String algorithm) {
+		resetStats();
+		stats = new SearchStats(algorithm);
+	}
+
+	// stops the clock on the current search; returns path so searches can
+	//  finish with  return finishStats(path);
+	protected List<UUSearchNode> finishStats(List<UUSearchNode> path) {
+		stats.finish(path == null ? 0 : path.size());
+		return path;
+	}
+
+	// the stats of the most recent search
+	public SearchStats getLastStats() {
+		return stats;
+	}
+
+	// getSuccessors, timed and counted
+	protected ArrayList<UUSearchNode> expand(UUSearchNode node) {
+		return expand(node, stats);
+	}
+
+	// like expand, but goes through the successor cache when it is enabled.
+	//  Only the depth-first searches use it: they are the ones that expand the
+	//  same nodes over and over (every IDSearch iteration re-expands the top
+	//  of the tree). The cached lists are shared, so callers must not modify them.
+	private ArrayList<UUSearchNode> expandCached(UUSearchNode node, SearchStats charged) {
+		SuccessorCache cache = successorCache;
+		if (cache == null) {
+			return expand(node, charged);
+		}
+		ArrayList<UUSearchNode> successors = cache.get(node);
+		if (successors != null) {
+			charged.cacheHit();
+			charged.successorsGenerated(successors.size(), 0);
+			return successors;
+		}
+		charged.cacheMiss();
+		successors = expand(node, charged);
+		cache.put(node, successors);
+		return successors;
+	}
+
+	private static ArrayList<UUSearchNode> expand(UUSearchNode node, SearchStats charged) {
+		long start = System.nanoTime();
+		ArrayList<UUSearchNode> successors = node.getSuccessors();
+		charged.successorsGenerated(successors.size(), System.nanoTime() - start);
+		return successors;
+	}
+
+	// getPredecessors, timed and counted
+	protected ArrayList<UUSearchNode> expandBackward(UUSearchNode node) {
+		long start = System.nanoTime();
+		ArrayList<UUSearchNode> predecessors = node.getPredecessors();
+		stats.successorsGenerated(predecessors.size(), System.nanoTime() - start);
+		return predecessors;
+	}
+
+	protected boolean isGoal(UUSearchNode node) {
+		stats.goalTested();
+		return node.goalTest();
+	}
+
+	private boolean isGoal(IndexedStateSpace space, int state) {
+		stats.goalTested();
+		return space.goalTest(state);
+	}
+
+	// a successor was skipped because the search had already seen it
+	protected void recordDuplicate() {
+		stats.duplicate();
+	}
+
 	protected void printStats() {
 		System.out.println("Nodes explored during last search:  " + nodesExplored);
 		System.out.println("Maximum memory usage during last search " + maxMemory);
@@ -210,10 +1043,13 @@ public abstract class UUSearchProblem {
 
 	protected void updateMemory(int currentMemory) {
 		maxMemory = Math.max(currentMemory, maxMemory);
+		stats.memory(currentMemory);
 	}
 
-	protected void incrementNodeCount() {
+	// depth is the depth of the node being charged for, for the histogram
+	protected void incrementNodeCount(int depth) {
 		nodesExplored++;
+		stats.nodeExplored(depth);
 	}
 
 }
@@ -0,0 +1,639 @@
+package assignment_mazeworld;
+
+/**
+ * Description: solves a manifest of maze jobs without any graphics, on a pool
+ * of threads, and streams one JSON object per finished job to stdout (in the
+ * order they finish; "job" is the manifest line). The drivers are JavaFX
+ * applications with their mazes and queries built in; this is the entry
+ * point for running the problems in bulk on a server.
+ * Each manifest line is one job; blank lines and lines starting with # are
+ * skipped:
+ *   mazeFile problem algorithm starts goals
+ *  - mazeFile: a .maz file, relative to the manifest's directory. A maze is
+ *    read when a job for it is queued and shared by its queued jobs, and
+ *    let go once none are left (so a manifest grouped by maze reads each
+ *    maze once).
+ *  - problem: simple, general or blind.
+ *  - algorithm: bfs, dfs-memo, ids, ucs, astar, astar-lazy for all problems,
+ *    and ara:MS, anytime A* (InformedSearchProblem.anytimeSearch) that
+ *    answers with the best path it has after MS milliseconds ("no path"
+ *    if it has none yet); ida:N, IDA* with a transposition table of N
+ *    states (0 for none); sma:N, SMA* with room for N nodes; and hda:N,
+ *    A* on N threads of its own (InformedSearchProblem.parallelAstarSearch);
+ *    xbfs:N, bfs with its layers on disk under java.io.tmpdir and N states
+ *    in memory (SearchProblem.externalBreadthFirstSearch), for simple and
+ *    general;
+ *    grid-bfs, grid-astar, jps, jps-plus, cached (a PathService shared by
+ *    the maze's jobs; the services of all loaded mazes share the -m
+ *    budget) for simple; astar-packed, cbs (optimal, see
+ *    GeneralMazeProblem.conflictBasedSearch) and cbs:W (plans at most W
+ *    times the optimal sum of costs) for general. A cbs job that runs out
+ *    of constraint tree nodes has status "limit".
+ *  - starts, goals: cells x,y separated by ; (one per agent). A blind job has
+ *    the cells it might start on, or * for any cell that can reach the goal,
+ *    and a single goal.
+ * For example:
+ *   simple.maz simple astar 0,0 3,3
+ *   simple.maz general astar 0,0;1,0 3,3;2,3
+ *   simple.maz blind astar * 3,3
+ * usage: BatchSolver [-t threads] [-m MB] [-path] [manifest | -]
+ *   -t N     worker threads (default: one per processor)
+ *   -m MB    memory for the cached jobs' search trees, over all mazes
+ *            (default: 256)
+ *   -path    include the path's states in the output
+ *   reads the manifest from stdin if it is - or left out
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import assignment_mazeworld.BlindMazeProblem.BlindMazeNode;
+import assignment_mazeworld.GeneralMazeProblem.GeneralMazeNode;
+import assignment_mazeworld.SearchProblem.SearchNode;
+import assignment_mazeworld.SimpleMazeProblem.SimpleMazeNode;
+
+public class BatchSolver {
+
+	// jobs read ahead of the workers, per thread; keeps a huge manifest from
+	//  being read into memory all at once
+	private static final int QUEUED_PER_THREAD = 64;
+
+	// the dfs searches recurse once per step of the path (see MazeBenchmark)
+	private static final long WORKER_STACK = 1L << 28;
+
+	// the anytime search starts at this heuristic weight and lowers it by
+	//  ANYTIME_STEP each round
+	private static final String ANYTIME = "ara:";
+	private static final double ANYTIME_WEIGHT = 3;
+	private static final double ANYTIME_STEP = 0.5;
+	private static final String IDA_STAR = "ida:";
+	private static final String SMA_STAR = "sma:";
+	private static final String PARALLEL = "hda:";
+	private static final String EXTERNAL_BFS = "xbfs:";
+	private static final String CBS = "cbs:";
+
+	private static final long DEFAULT_PATH_BUDGET = 256L << 20;
+
+	private final int threads;
+	private final boolean printPaths;
+	private final Writer out;
+
+	// maze file -> the maze and what its jobs share, for the mazes that have
+	//  jobs queued or running
+	private final ConcurrentHashMap<String, MazeEntry> mazes = new ConcurrentHashMap<String, MazeEntry>();
+
+	// the PathServices of the loaded mazes, splitting pathBudget evenly
+	private final ArrayList<PathService> services = new ArrayList<PathService>();
+	private long pathBudget = DEFAULT_PATH_BUDGET;
+
+	private final AtomicInteger solved = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+
+	public BatchSolver(int threads, boolean printPaths, Writer out) {
+		this.threads = threads;
+		this.printPaths = printPaths;
+		this.out = out;
+	}
+
+	// bytes for the cached jobs' search trees, shared by all mazes
+	public void setPathBudget(long bytes) {
+		synchronized (services) {
+			pathBudget = bytes;
+			rebalance();
+		}
+	}
+
+	public int getSolved() {
+		return solved.get();
+	}
+
+	public int getFailed() {
+		return failed.get();
+	}
+
+	// runs every job of the manifest and returns once all of them are written
+	public void run(BufferedReader manifest, File baseDir) throws IOException, InterruptedException {
+		final AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(null, r, "BatchSolver-" + threadCount.incrementAndGet(), WORKER_STACK);
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		final Semaphore queued = new Semaphore(threads * QUEUED_PER_THREAD);
+
+		String line;
+		int lineNumber = 0;
+		try {
+			while ((line = manifest.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				final Job job;
+				try {
+					job = Job.parse(lineNumber, line, baseDir);
+				} catch (IllegalArgumentException e) {
+					fail(lineNumber, null, e.getMessage());
+					continue;
+				}
+				queued.acquire();
+				retain(job.mazeFile);
+				pool.execute(new Runnable() {
+					public void run() {
+						try {
+							solve(job);
+						} finally {
+							queued.release();
+						}
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			out.flush();
+		}
+	}
+
+	// counts a queued job for its maze
+	private void retain(String mazeFile) {
+		mazes.compute(mazeFile, (file, entry) -> {
+			if (entry == null) {
+				entry = new MazeEntry(file);
+			}
+			entry.jobs++;
+			return entry;
+		});
+	}
+
+	// the job is done with its maze; the last one lets the maze go
+	private void release(String mazeFile) {
+		MazeEntry[] dropped = new MazeEntry[1];
+		mazes.computeIfPresent(mazeFile, (file, entry) -> {
+			if (--entry.jobs > 0) {
+				return entry;
+			}
+			dropped[0] = entry;
+			return null;
+		});
+		if (dropped[0] != null) {
+			synchronized (services) {
+				if (dropped[0].paths != null) {
+					services.remove(dropped[0].paths);
+					rebalance();
+				}
+			}
+		}
+	}
+
+	// the maze's PathService, made on its first cached job
+	private PathService pathService(MazeEntry entry) {
+		synchronized (services) {
+			if (entry.paths == null) {
+				entry.paths = new PathService(entry.getMaze(), pathBudget);
+				services.add(entry.paths);
+				rebalance();
+			}
+			return entry.paths;
+		}
+	}
+
+	// a service may go over its share by the one tree it is answering from
+	private void rebalance() {
+		for (PathService service : services) {
+			service.setMemoryBudget(pathBudget / services.size());
+		}
+	}
+
+	private void solve(Job job) {
+		try {
+			solve(job, mazes.get(job.mazeFile));
+		} finally {
+			release(job.mazeFile);
+		}
+	}
+
+	private void solve(Job job, MazeEntry entry) {
+		Maze maze;
+		try {
+			maze = entry.getMaze();
+		} catch (IllegalArgumentException e) {
+			fail(job.line, job, e.getMessage());
+			return;
+		}
+		try {
+			job.check(maze);
+			InformedSearchProblem problem = job.newProblem(maze);
+			PathService paths = job.algorithm.equals("cached") ? pathService(entry) : null;
+			long start = System.nanoTime();
+			List<SearchNode> path = job.search(problem, entry.floorCells, paths);
+			long elapsed = System.nanoTime() - start;
+
+			StringBuilder json = new StringBuilder(128);
+			json.append("{\"job\":").append(job.line);
+			appendJob(json, job);
+			json.append(",\"status\":\"").append(status(problem, path)).append('"');
+			json.append(",\"pathLength\":").append(path == null ? -1 : path.size());
+			json.append(",\"nodesExplored\":").append(problem.getNodesExplored());
+			json.append(",\"maxMemory\":").append(problem.getMaxMemory());
+			json.append(",\"millis\":").append(String.format(Locale.ROOT, "%.3f", elapsed / 1e6));
+			if (printPaths && path != null) {
+				json.append(",\"path\":[");
+				for (int i = 0; i < path.size(); i++) {
+					if (i > 0) {
+						json.append(',');
+					}
+					appendState(json, path.get(i));
+				}
+				json.append(']');
+			}
+			json.append('}');
+			write(json);
+			solved.incrementAndGet();
+		} catch (RuntimeException e) {
+			fail(job.line, job, (e.getMessage() != null) ? e.getMessage() : e.toString());
+		} catch (StackOverflowError e) {
+			fail(job.line, job, "search ran out of stack");
+		} catch (OutOfMemoryError e) {
+			fail(job.line, job, "search ran out of memory");
+		}
+	}
+
+	// "limit" when a search gave up on its budget before it could tell
+	//  whether there is a path
+	private static String status(InformedSearchProblem problem, List<SearchNode> path) {
+		if (path != null) {
+			return "ok";
+		} else if (problem instanceof GeneralMazeProblem && ((GeneralMazeProblem) problem).isCbsNodeLimitReached()) {
+			return "limit";
+		}
+		return "no path";
+	}
+
+	private void fail(int line, Job job, String message) {
+		StringBuilder json = new StringBuilder(128);
+		json.append("{\"job\":").append(line);
+		if (job != null) {
+			appendJob(json, job);
+		}
+		json.append(",\"status\":\"error\",\"message\":");
+		appendString(json, message);
+		json.append('}');
+		write(json);
+		failed.incrementAndGet();
+	}
+
+	// whole lines only, so output from different workers never interleaves
+	private void write(CharSequence line) {
+		synchronized (out) {
+			try {
+				out.append(line).append('\n');
+				out.flush();
+			} catch (IOException e) {
+				throw new RuntimeException("can't write results", e);
+			}
+		}
+	}
+
+	private static void appendJob(StringBuilder json, Job job) {
+		json.append(",\"maze\":");
+		appendString(json, job.mazeName);
+		json.append(",\"problem\":\"").append(job.problem).append('"');
+		json.append(",\"algorithm\":\"").append(job.algorithm).append('"');
+	}
+
+	// a simple state is [x,y]; general and blind ones are lists of those
+	//  (one per agent / per possible location)
+	private static void appendState(StringBuilder json, SearchNode node) {
+		if (node instanceof SimpleMazeNode) {
+			SimpleMazeNode simple = (SimpleMazeNode) node;
+			json.append('[').append(simple.getX()).append(',').append(simple.getY()).append(']');
+		} else if (node instanceof GeneralMazeNode) {
+			GeneralMazeNode general = (GeneralMazeNode) node;
+			json.append('[');
+			for (int i = 0; i < general.getNumAgents(); i++) {
+				json.append(i > 0 ? ",[" : "[").append(general.getXof(i)).append(',').append(general.getYof(i)).append(']');
+			}
+			json.append(']');
+		} else {
+			json.append('[');
+			boolean first = true;
+			for (int[] loc : ((BlindMazeNode) node).getLocations()) {
+				json.append(first ? "[" : ",[").append(loc[0]).append(',').append(loc[1]).append(']');
+				first = false;
+			}
+			json.append(']');
+		}
+	}
+
+	private static void appendString(StringBuilder json, String s) {
+		json.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		json.append('"');
+	}
+
+
+	//================MazeEntry class=================
+	// a maze and what its jobs share: the dfs depth limit and the path
+	//  service for the cached algorithm. The maze is read by the first job
+	//  that runs.
+	private static class MazeEntry {
+		final String file;
+		private Maze maze;
+		private boolean unreadable;
+		int floorCells;
+
+		// queued and running jobs, changed only in BatchSolver.mazes.compute
+		int jobs;
+		// guarded by BatchSolver.services
+		PathService paths;
+
+		MazeEntry(String file) {
+			this.file = file;
+		}
+
+		synchronized Maze getMaze() {
+			if (maze == null && !unreadable) {
+				maze = Maze.readFromFile(file);
+				unreadable = maze == null;
+				if (maze != null) {
+					floorCells = MazeBenchmark.countFloor(maze);
+				}
+			}
+			if (maze == null) {
+				throw new IllegalArgumentException("can't read maze " + file);
+			}
+			return maze;
+		}
+	}
+
+
+	//================Job class=================
+	private static class Job {
+		final int line;
+		final String mazeName;
+		final String mazeFile;
+		final String problem;
+		final String algorithm;
+		// null for a blind job that may start anywhere
+		final int[][] starts;
+		final int[][] goals;
+
+		private Job(int line, String mazeName, String mazeFile, String problem, String algorithm,
+				int[][] starts, int[][] goals) {
+			this.line = line;
+			this.mazeName = mazeName;
+			this.mazeFile = mazeFile;
+			this.problem = problem;
+			this.algorithm = algorithm;
+			this.starts = starts;
+			this.goals = goals;
+		}
+
+		static Job parse(int line, String text, File baseDir) {
+			String[] fields = text.split("\\s+");
+			if (fields.length != 5) {
+				throw new IllegalArgumentException("expected: mazeFile problem algorithm starts goals");
+			}
+			File file = new File(fields[0]);
+			if (!file.isAbsolute() && baseDir != null) {
+				file = new File(baseDir, fields[0]);
+			}
+			String problem = fields[1];
+			String algorithm = fields[2];
+			int[][] starts = (problem.equals("blind") && fields[3].equals("*")) ? null : parseCells(fields[3]);
+			int[][] goals = parseCells(fields[4]);
+
+			if (problem.equals("simple")) {
+				if (starts.length != 1 || goals.length != 1) {
+					throw new IllegalArgumentException("a simple job has one start and one goal");
+				}
+			} else if (problem.equals("general")) {
+				if (starts.length != goals.length) {
+					throw new IllegalArgumentException("a general job needs a goal for each start");
+				}
+			} else if (problem.equals("blind")) {
+				if (goals.length != 1) {
+					throw new IllegalArgumentException("a blind job has one goal");
+				}
+			} else {
+				throw new IllegalArgumentException("unknown problem " + problem);
+			}
+			if (algorithm.startsWith(ANYTIME)) {
+				try {
+					Long.parseLong(algorithm.substring(ANYTIME.length()));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("expected ara:MS, the time budget in milliseconds");
+				}
+			} else if (algorithm.startsWith(IDA_STAR) || algorithm.startsWith(SMA_STAR)) {
+				try {
+					Integer.parseInt(algorithm.substring(algorithm.indexOf(':') + 1));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("expected ida:N or sma:N, the memory budget in states");
+				}
+			} else if (algorithm.startsWith(PARALLEL)) {
+				try {
+					if (Integer.parseInt(algorithm.substring(PARALLEL.length())) < 1) {
+						throw new NumberFormatException();
+					}
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("expected hda:N, the number of threads");
+				}
+			} else if (algorithm.startsWith(EXTERNAL_BFS)) {
+				try {
+					if (Integer.parseInt(algorithm.substring(EXTERNAL_BFS.length())) < 1) {
+						throw new NumberFormatException();
+					}
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("expected xbfs:N, the states to keep in memory");
+				}
+				if (problem.equals("blind")) {
+					throw new IllegalArgumentException("blind states don't pack into a long, so no xbfs");
+				}
+			} else if (algorithm.startsWith(CBS)) {
+				try {
+					if (!(Double.parseDouble(algorithm.substring(CBS.length())) >= 1)) {
+						throw new NumberFormatException();
+					}
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("expected cbs:W, the suboptimality factor (at least 1)");
+				}
+				if (!problem.equals("general")) {
+					throw new IllegalArgumentException("cbs is for general problems only");
+				}
+			} else if (!MazeBenchmark.isAlgorithm(algorithm) && !algorithm.equals("astar-lazy")
+					&& !(problem.equals("simple") && (algorithm.equals("grid-bfs") || algorithm.equals("grid-astar")
+							|| algorithm.equals("jps") || algorithm.equals("jps-plus") || algorithm.equals("cached")))
+					&& !(problem.equals("general") && (algorithm.equals("astar-packed") || algorithm.equals("cbs")))) {
+				throw new IllegalArgumentException("unknown " + problem + " search " + algorithm);
+			}
+			return new Job(line, fields[0], file.getPath(), problem, algorithm, starts, goals);
+		}
+
+		private static int[][] parseCells(String field) {
+			String[] cells = field.split(";");
+			int[][] xy = new int[cells.length][];
+			for (int i = 0; i < cells.length; i++) {
+				String[] parts = cells[i].split(",");
+				try {
+					if (parts.length != 2) {
+						throw new NumberFormatException();
+					}
+					xy[i] = new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("bad cell " + cells[i] + ", expected x,y");
+				}
+			}
+			return xy;
+		}
+
+		// the starts and goals have to be floor cells of the maze
+		void check(Maze maze) {
+			if (starts != null) {
+				for (int[] cell : starts) {
+					if (!maze.isLegal(cell[0], cell[1])) {
+						throw new IllegalArgumentException("start " + cell[0] + "," + cell[1] + " is not a floor cell");
+					}
+				}
+			}
+			for (int[] cell : goals) {
+				if (!maze.isLegal(cell[0], cell[1])) {
+					throw new IllegalArgumentException("goal " + cell[0] + "," + cell[1] + " is not a floor cell");
+				}
+			}
+		}
+
+		InformedSearchProblem newProblem(Maze maze) {
+			if (problem.equals("simple")) {
+				return new SimpleMazeProblem(maze, starts[0][0], starts[0][1], goals[0][0], goals[0][1]);
+			} else if (problem.equals("general")) {
+				return new GeneralMazeProblem(maze, starts, goals);
+			}
+			if (starts == null) {
+				return new BlindMazeProblem(maze, goals[0][0], goals[0][1]);
+			}
+			HashSet<ArrayList<Integer>> belief = new HashSet<ArrayList<Integer>>();
+			for (int[] cell : starts) {
+				ArrayList<Integer> loc = new ArrayList<Integer>();
+				loc.add(cell[0]);
+				loc.add(cell[1]);
+				belief.add(loc);
+			}
+			return new BlindMazeProblem(maze, belief, goals[0][0], goals[0][1]);
+		}
+
+		List<SearchNode> search(InformedSearchProblem searchProblem, int floorCells, PathService paths) {
+			if (algorithm.equals("astar-lazy")) {
+				return searchProblem.astarSearchLazy();
+			} else if (algorithm.startsWith(ANYTIME)) {
+				long budget = Long.parseLong(algorithm.substring(ANYTIME.length()));
+				return searchProblem.anytimeSearch(ANYTIME_WEIGHT, ANYTIME_STEP, budget, null);
+			} else if (algorithm.startsWith(IDA_STAR)) {
+				return searchProblem.idaStarSearch(Integer.parseInt(algorithm.substring(IDA_STAR.length())));
+			} else if (algorithm.startsWith(SMA_STAR)) {
+				return searchProblem.smaStarSearch(Integer.parseInt(algorithm.substring(SMA_STAR.length())));
+			} else if (algorithm.startsWith(PARALLEL)) {
+				return searchProblem.parallelAstarSearch(Integer.parseInt(algorithm.substring(PARALLEL.length())));
+			} else if (algorithm.startsWith(EXTERNAL_BFS)) {
+				return searchProblem.externalBreadthFirstSearch(new File(System.getProperty("java.io.tmpdir")),
+						Integer.parseInt(algorithm.substring(EXTERNAL_BFS.length())));
+			}
+			if (searchProblem instanceof SimpleMazeProblem) {
+				SimpleMazeProblem simple = (SimpleMazeProblem) searchProblem;
+				if (algorithm.equals("grid-bfs")) {
+					return simple.gridBreadthFirstSearch();
+				} else if (algorithm.equals("grid-astar")) {
+					return simple.gridAstarSearch();
+				} else if (algorithm.equals("jps")) {
+					return simple.jumpPointSearch(false);
+				} else if (algorithm.equals("jps-plus")) {
+					return simple.jumpPointSearch(true);
+				} else if (algorithm.equals("cached")) {
+					return simple.cachedPath(paths);
+				}
+			} else if (searchProblem instanceof GeneralMazeProblem) {
+				GeneralMazeProblem general = (GeneralMazeProblem) searchProblem;
+				if (algorithm.equals("astar-packed")) {
+					return general.astarSearchPacked();
+				} else if (algorithm.equals("cbs")) {
+					return general.conflictBasedSearch();
+				} else if (algorithm.startsWith(CBS)) {
+					return general.conflictBasedSearch(Double.parseDouble(algorithm.substring(CBS.length())));
+				}
+			}
+			int agents = (starts == null) ? 1 : starts.length;
+			return MazeBenchmark.search(searchProblem, algorithm, floorCells * agents);
+		}
+	}
+
+	public static void main(String args[]) throws IOException, InterruptedException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean printPaths = false;
+		long pathBudget = DEFAULT_PATH_BUDGET;
+		String manifestFile = "-";
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-t")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-m")) {
+				pathBudget = Long.parseLong(args[++i]) << 20;
+			} else if (args[i].equals("-path")) {
+				printPaths = true;
+			} else {
+				manifestFile = args[i];
+			}
+		}
+
+		BufferedReader manifest;
+		File baseDir = null;
+		if (manifestFile.equals("-")) {
+			manifest = new BufferedReader(new InputStreamReader(System.in, Maze.ENCODING));
+		} else {
+			manifest = new BufferedReader(new FileReader(manifestFile, Maze.ENCODING));
+			baseDir = new File(manifestFile).getAbsoluteFile().getParentFile();
+		}
+		Writer out = new BufferedWriter(new OutputStreamWriter(System.out, Maze.ENCODING));
+
+		BatchSolver solver = new BatchSolver(threads, printPaths, out);
+		solver.setPathBudget(pathBudget);
+		long start = System.nanoTime();
+		try {
+			solver.run(manifest, baseDir);
+		} finally {
+			manifest.close();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		int jobs = solver.getSolved() + solver.getFailed();
+		System.err.println(jobs + " jobs (" + solver.getFailed() + " failed) in "
+				+ String.format("%.1f", seconds) + " s on " + threads + " threads, "
+				+ String.format("%.0f", jobs / seconds * 60) + " jobs/minute");
+	}
+}
@@ -156,15 +156,15 @@ private class GameHandler implements EventHandler<ActionEvent> {
         public AnimationPath(MazeView mazeView, List<SearchNode> path) {
             searchPath = path;
             BlindMazeNode firstNode = (BlindMazeNode) searchPath.get(0);
-            int beliefSize = firstNode.beliefState.size(); //size of the belief state
+            int beliefSize = firstNode.getBeliefSize(); //size of the belief state
             pieces = new Node[beliefSize];
             lastXs = new int[beliefSize];
             lastYs = new int[beliefSize];
             int index = 0;
-            for(ArrayList<Integer> loc : firstNode.beliefState){// for all possible locations of the agent
-                pieces[index] = mazeView.addPiece_SingleColor(loc.get(0), loc.get(1));
-                lastXs[index] = loc.get(0);
-                lastYs[index] = loc.get(1);
+            for(int[] loc : firstNode.getLocations()){// for all possible locations of the agent
+                pieces[index] = mazeView.addPiece_SingleColor(loc[0], loc[1]);
+                lastXs[index] = loc[0];
+                lastYs[index] = loc[1];
                 index += 1;
             }
         }
@@ -185,26 +185,26 @@ private class GameHandler implements EventHandler<ActionEvent> {
                 }
 
 
-                pieces = new Node[mazeNode.beliefState.size()];
-                lastXs = new int[mazeNode.beliefState.size()];
-                lastYs = new int[mazeNode.beliefState.size()];
+                pieces = new Node[mazeNode.getBeliefSize()];
+                lastXs = new int[mazeNode.getBeliefSize()];
+                lastYs = new int[mazeNode.getBeliefSize()];
                 int i = 0;
-                for(ArrayList<Integer> loc : mazeNode.beliefState){// for all possible locations of the agent
-                    pieces[i] = mazeView.addPiece_SingleColor(loc.get(0), loc.get(1));
-                    lastXs[i] = loc.get(0);
-                    lastYs[i] = loc.get(1);
+                for(int[] loc : mazeNode.getLocations()){// for all possible locations of the agent
+                    pieces[i] = mazeView.addPiece_SingleColor(loc[0], loc[1]);
+                    lastXs[i] = loc[0];
+                    lastYs[i] = loc[1];
                     i += 1;
                 }
 
                 int index = 0;
-                for(ArrayList<Integer> loc : mazeNode.beliefState){
-                    int dx = loc.get(0) - lastXs[index];
-                    int dy = loc.get(1) - lastYs[index];
+                for(int[] loc : mazeNode.getLocations()){
+                    int dx = loc[0] - lastXs[index];
+                    int dy = loc[1] - lastYs[index];
                     animateMove(pieces[index], dx, dy);
                     if(dx > 0 || dy <0)
                         mazeView.removePiece(pieces[index]);
-                    lastXs[index] = loc.get(0);
-                    lastYs[index] = loc.get(1);
+                    lastXs[index] = loc[0];
+                    lastYs[index] = loc[1];
                     index++;
                 }
                 currentMove++;
@@ -1,71 +1,309 @@
 package assignment_mazeworld;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 // Find a path for a single blind agent to get from a start location (xStart, yStart)
 //  to a goal location (xGoal, yGoal)
+// Optimal plans (astarSearch, bfs, ucs) from a belief that covers the whole
+//  maze only finish up to about 12x12: the number of beliefs explodes with
+//  the maze. On larger mazes, use weightedAstarSearch or anytimeSearch.
+//  Weight 5 plans a 64x64 maze in under a second (see main), with plans
+//  that may be up to 5x longer than the optimum.
 
 public class BlindMazeProblem extends InformedSearchProblem {
 
     private static int actions[][] = {Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST};
 
     private int xGoal, yGoal;
-//    private HashSet<int[]> startSet;
-    private HashSet<ArrayList<Integer>> startSet;
 
     private Maze maze;
 
+    //====bitset belief states====
+    // a belief state is a long[] with bit y * width + x set for every cell
+    //  the agent might be in (bit c in word c >>> 6, bit c & 63)
+    private int width;
+    private int numCells;
+    private int numWords;
+    // for each action: the cells that move when it is applied (the cell in
+    //  that direction is on the map and floor), and how far the bit index
+    //  moves. Every other cell bumps into a wall and stays where it is.
+    private long[][] canMove;
+    private int[] shift;
+    // the belief state that is just the goal cell
+    private long[] goalWords;
+
+    // true maze distance of every cell to the goal (see
+    //  setTrueDistanceHeuristic), or null for the old min manhattan heuristic
+    private int[] goalDistances;
+
+    //====subsumption pruning====
+    // a plan that localizes the agent from belief B also works from any
+    //  subset of B, so a belief that contains an expanded one reached at no
+    //  higher cost can't lead anywhere better. Expanded beliefs go in a set
+    //  trie (see BeliefTrie) that answers "is there a closed subset" without
+    //  looking at every closed node.
+    private boolean subsumptionPruning;
+    private BeliefTrie closed;
+
     public BlindMazeProblem(Maze m, HashSet<ArrayList<Integer>> beliefState,int gx, int gy) {
-        startNode = new BlindMazeNode(beliefState, 0);
-        startSet = beliefState;
+        this(m, gx, gy, toWords(m, beliefState));
+    }
+
+    // the agent could start on any floor cell it can walk to the goal from.
+    //  Cells walled off from the goal are left out: if the agent might be in
+    //  one of them, no plan can ever localize it.
+    public BlindMazeProblem(Maze m, int gx, int gy) {
+        this(m, gx, gy, connectedWords(m, gx, gy));
+    }
+
+    private BlindMazeProblem(Maze m, int gx, int gy, long[] startWords) {
         xGoal = gx;
         yGoal = gy;
         maze = m;
+        width = m.width;
+        numCells = m.width * m.height;
+        numWords = (numCells + 63) >>> 6;
+
+        canMove = new long[actions.length][numWords];
+        shift = new int[actions.length];
+        for (int a = 0; a < actions.length; a++) {
+            shift[a] = actions[a][1] * width + actions[a][0];
+            for (int y = 0; y < m.height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (m.isLegal(x + actions[a][0], y + actions[a][1])) {
+                        setBit(canMove[a], y * width + x);
+                    }
+                }
+            }
+        }
+        goalWords = new long[numWords];
+        setBit(goalWords, gy * width + gx);
+        goalDistances = DistanceTables.get(m, gx, gy);
+
+        startNode = new BlindMazeNode(startWords, 0);
+    }
+
+    // the given [x, y] locations as a bitset
+    private static long[] toWords(Maze m, HashSet<ArrayList<Integer>> locations) {
+        long[] words = new long[(m.width * m.height + 63) >>> 6];
+        for (ArrayList<Integer> loc : locations) {
+            setBit(words, loc.get(1) * m.width + loc.get(0));
+        }
+        return words;
     }
 
+    // every cell with a path to the goal, as a bitset
+    private static long[] connectedWords(Maze m, int gx, int gy) {
+        int[] distances = DistanceTables.get(m, gx, gy);
+        long[] words = new long[(distances.length + 63) >>> 6];
+        for (int cell = 0; cell < distances.length; cell++) {
+            if (distances[cell] != DistanceTables.UNREACHABLE) {
+                setBit(words, cell);
+            }
+        }
+        return words;
+    }
+
+    // on by default: the heuristic is the largest true maze distance from a
+    //  belief cell to the goal. Every cell in the belief has to be walked to
+    //  the goal, so none of them can take fewer moves than that. Off gives the
+    //  minimum manhattan distance instead, which is far weaker.
+    public void setTrueDistanceHeuristic(boolean on) {
+        goalDistances = on ? DistanceTables.get(maze, xGoal, yGoal) : null;
+    }
+
+    // off by default; only astarSearch prunes. Each check walks the trie of
+    //  closed beliefs, so pruning saves expansions but not always time: on
+    //  a 10x10 maze it cuts a quarter of the expansions and of the memory,
+    //  and runs about 5x slower. Worth turning on when memory is the limit.
+    public void setSubsumptionPruning(boolean on) {
+        subsumptionPruning = on;
+    }
+
+    @Override
+    public List<SearchNode> astarSearch() {
+        closed = subsumptionPruning ? new BeliefTrie() : null;
+        try {
+            return super.astarSearch();
+        } finally {
+            closed = null;
+        }
+    }
+
+    @Override
+    protected void nodeClosed(SearchNode node) {
+        if (closed != null) {
+            closed.add(((BlindMazeNode) node).belief, node.getCost());
+        }
+    }
+
+    @Override
+    protected boolean isDominated(SearchNode node) {
+        return closed != null && closed.containsSubsetOf(((BlindMazeNode) node).belief, node.getCost());
+    }
+
+    private static void setBit(long[] words, int cell) {
+        words[cell >>> 6] |= 1L << cell;
+    }
+
+    // or's bits shifted by k cells (k > 0 towards higher cells) into out
+    private static void orShifted(long[] bits, int k, long[] out) {
+        int n = bits.length;
+        if (k >= 0) {
+            int wordShift = k >>> 6;
+            int bitShift = k & 63;
+            for (int i = n - 1; i >= wordShift; i--) {
+                long w = bits[i - wordShift] << bitShift;
+                if (bitShift != 0 && i - wordShift - 1 >= 0) {
+                    w |= bits[i - wordShift - 1] >>> (64 - bitShift);
+                }
+                out[i] |= w;
+            }
+        } else {
+            int wordShift = (-k) >>> 6;
+            int bitShift = (-k) & 63;
+            for (int i = 0; i < n - wordShift; i++) {
+                long w = bits[i + wordShift] >>> bitShift;
+                if (bitShift != 0 && i + wordShift + 1 < n) {
+                    w |= bits[i + wordShift + 1] << (64 - bitShift);
+                }
+                out[i] |= w;
+            }
+        }
+    }
+
+
+    //================BeliefTrie class=================
+    // the closed beliefs, each stored as the path of its cells in increasing
+    //  order. A closed belief is a subset of a query belief exactly when its
+    //  path only steps on cells of the query, so the lookup only follows
+    //  edges whose cell is set in the query, and skips subtrees where
+    //  everything was reached at a higher cost.
+    private static final class BeliefTrie {
+
+        // children sorted by cell; only the first numChildren slots are used
+        private int[] cells = new int[2];
+        private BeliefTrie[] children = new BeliefTrie[2];
+        private int numChildren;
+        // cheapest closed belief that ends here, and the cheapest anywhere below
+        private double cost = Double.POSITIVE_INFINITY;
+        private double minCost = Double.POSITIVE_INFINITY;
+
+        void add(long[] belief, double c) {
+            BeliefTrie node = this;
+            node.minCost = Math.min(node.minCost, c);
+            for (int i = 0; i < belief.length; i++) {
+                long w = belief[i];
+                while (w != 0) {
+                    node = node.child((i << 6) + Long.numberOfTrailingZeros(w));
+                    node.minCost = Math.min(node.minCost, c);
+                    w &= w - 1;
+                }
+            }
+            node.cost = Math.min(node.cost, c);
+        }
+
+        boolean containsSubsetOf(long[] belief, double maxCost) {
+            if (minCost > maxCost) {
+                return false;
+            }
+            if (cost <= maxCost) {
+                return true;
+            }
+            for (int k = 0; k < numChildren; k++) {
+                int cell = cells[k];
+                if ((belief[cell >>> 6] & (1L << cell)) != 0
+                        && children[k].containsSubsetOf(belief, maxCost)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private BeliefTrie child(int cell) {
+            int k = Arrays.binarySearch(cells, 0, numChildren, cell);
+            if (k >= 0) {
+                return children[k];
+            }
+            k = -k - 1;
+            if (numChildren == cells.length) {
+                cells = Arrays.copyOf(cells, numChildren * 2);
+                children = Arrays.copyOf(children, numChildren * 2);
+            }
+            System.arraycopy(cells, k, cells, k + 1, numChildren - k);
+            System.arraycopy(children, k, children, k + 1, numChildren - k);
+            cells[k] = cell;
+            children[k] = new BeliefTrie();
+            numChildren++;
+            return children[k];
+        }
+    }
+    //===============End of BeliefTrie class==================
 
     //================BlindMazeNode class=================
     // node class used by searches.  Searches themselves are implemented
     //  in SearchProblem.
     public class BlindMazeNode implements SearchNode {
 
-        // possible locations of the agent in the maze --> {[x1,y1], [x2,y2] ,...}
-        protected HashSet<ArrayList<Integer>> beliefState = new HashSet<ArrayList<Integer>>();
+        // possible locations of the agent in the maze, as a bitset over the cells
+        protected long[] belief;
 
         // how far the current node is from the start.  Not strictly required
         //  for uninformed search, but useful information for debugging,
         //  and for comparing paths
         private double cost;
 
-        public BlindMazeNode(HashSet<ArrayList<Integer>> B_State , double c) {
-            beliefState = B_State;
+        // cached, since A* and the pruning ask for them more than once;
+        //  -1 until computed
+        private int size = -1;
+        private double h = -1;
+
+        public BlindMazeNode(long[] beliefWords, double c) {
+            belief = beliefWords;
             cost = c;
         }
 
+        // how many cells the agent might be in
+        public int getBeliefSize() {
+            if (size < 0) {
+                int count = 0;
+                for (long w : belief) {
+                    count += Long.bitCount(w);
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        // the possible locations as [x, y] pairs, in cell order
+        public List<int[]> getLocations() {
+            List<int[]> locations = new ArrayList<int[]>();
+            for (int i = 0; i < belief.length; i++) {
+                long w = belief[i];
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    locations.add(new int[]{cell % width, cell / width});
+                    w &= w - 1;
+                }
+            }
+            return locations;
+        }
+
         public ArrayList<SearchNode> getSuccessors() {
             ArrayList<SearchNode> successors = new ArrayList<SearchNode>();
-            for (int[] action: actions) { //for each direction
-                HashSet<ArrayList<Integer>> tempSet = new HashSet<ArrayList<Integer>>();
-                for(ArrayList<Integer> loc : beliefState) { //for each location in the beliefState
-                    int xNew = loc.get(0) + action[0];
-                    int yNew = loc.get(1) + action[1];
-
-                    //System.out.println("testing successor " + xNew + " " + yNew);
-                    if (maze.isLegal(xNew, yNew)) { //if the new location is legal tehn add it
-//                        System.out.println("legal successor found " + " " + xNew + " " + yNew);
-                        ArrayList<Integer> tempArray = new ArrayList<Integer>();
-                        tempArray.add(0, xNew);
-                        tempArray.add(1, yNew);
-                        tempSet.add(tempArray); //add the possible location to this belief set for this direction
-                    }else{//if not add the old location
-                        tempSet.add(loc);
-                    }
+            for (int a = 0; a < actions.length; a++) { //for each direction
+                // cells that can move do, a word at a time; the rest stay put
+                long[] moved = new long[numWords];
+                long[] movers = new long[numWords];
+                for (int i = 0; i < numWords; i++) {
+                    movers[i] = belief[i] & canMove[a][i];
+                    moved[i] = belief[i] & ~canMove[a][i];
                 }
-                SearchNode succ = new BlindMazeNode(tempSet, getCost()+1.0); //Make a node with the new belief state for this direction and add as a successor
+                orShifted(movers, shift[a], moved);
+                SearchNode succ = new BlindMazeNode(moved, getCost()+1.0); //Make a node with the new belief state for this direction and add as a successor
                 successors.add(succ);
             }
             return successors;
@@ -73,15 +311,7 @@ public class BlindMazeProblem extends InformedSearchProblem {
 
         @Override
         public boolean goalTest() { //the goal is reached if the belief state has shrank to 1, and that is the goal location
-            if(beliefState.size() == 1){
-                boolean isGoal = true;
-                for (ArrayList<Integer> loc : beliefState){ //only way to get to the only [x,y] in the set
-                    isGoal = ((loc.get(0) == xGoal) && (loc.get(1) == yGoal));
-                }
-                return isGoal;
-            }else{
-                return false;
-            }
+            return Arrays.equals(belief, goalWords);
         }
 
 
@@ -89,31 +319,26 @@ public class BlindMazeProblem extends InformedSearchProblem {
         // can check for containment of states
         @Override
         public boolean equals(Object other) {
-            return (beliefState.equals(((BlindMazeNode)other).beliefState));
+            return Arrays.equals(belief, ((BlindMazeNode) other).belief);
         }
 
         @Override
         public int hashCode() {
-            StringBuilder hashStr = new StringBuilder(); //make a stringBuilder because it is faster than the '+'
-            //since set will not always iterate in the same order I convert to charArray and sort first
-            for(ArrayList<Integer> loc : beliefState) {//for each location in the beliefState
-                hashStr.append(Integer.toString(loc.get(0)));
-                hashStr.append(Integer.toString(loc.get(1)));
+            long h = 0;
+            for (long w : belief) {
+                h = LongIndexMap.mix(h ^ w);
             }
-            //since set will not always iterate in the same order I convert to charArray and sort first
-            char[] c = hashStr.toString().toCharArray();
-            Arrays.sort(c);
-            return new String(c).hashCode();
+            return (int) (h ^ (h >>> 32));
         }
 
         @Override
         public String toString() {
-            String str = "{ Cost: " + getCost() + " | ";
-            for(ArrayList<Integer> loc : beliefState){
-                str = str + "[" + loc.get(0) + "," + loc.get(1) + "] ";
+            StringBuilder str = new StringBuilder("{ Cost: " + getCost() + " | ");
+            for (int[] loc : getLocations()) {
+                str.append("[").append(loc[0]).append(",").append(loc[1]).append("] ");
             }
-            str = str + "}";
-            return str;
+            str.append("}");
+            return str.toString();
         }
 
         @Override
@@ -124,33 +349,47 @@ public class BlindMazeProblem extends InformedSearchProblem {
 
         @Override
         public double heuristic() {
-            // min of manhattan distances for all possible states: that is optimistic!
-            double minDist = startSet.size(); //initialize minDist to the size of the maze
-            for (ArrayList<Integer> loc : beliefState){
-                double tempDist = getManhattan(new int[]{loc.get(0), loc.get(1)}, new int[]{xGoal,yGoal});
-                if(tempDist < minDist){
-                    minDist =  tempDist;
-                }
+            if (h < 0) {
+                h = (goalDistances != null) ? maxGoalDistance() : minManhattan();
             }
-            return minDist;
+            return h;
         }
 
-        /**
-         * Helper Method to be used in heuristic()
-         * @param start : the int[2] start location
-         * @param end : he int[2] end location
-         * @return the mahattan distance between int[2] start and int[2] end
-         */
-        private double getManhattan(int[] start, int[] end){
-            double dx = end[0] - start[0];
-            double dy = end[1] - start[1];
-            return Math.abs(dx) + Math.abs(dy);
+        // largest true distance to the goal over the belief; infinite if some
+        //  cell can't reach the goal at all (then no plan exists from here)
+        private double maxGoalDistance() {
+            int maxDist = 0;
+            for (int i = 0; i < belief.length; i++) {
+                long w = belief[i];
+                while (w != 0) {
+                    int dist = goalDistances[(i << 6) + Long.numberOfTrailingZeros(w)];
+                    if (dist == DistanceTables.UNREACHABLE) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                    maxDist = Math.max(maxDist, dist);
+                    w &= w - 1;
+                }
+            }
+            return maxDist;
+        }
 
+        private double minManhattan() {
+            // min of manhattan distances for all possible states: that is optimistic!
+            int minDist = Integer.MAX_VALUE;
+            for (int i = 0; i < belief.length; i++) {
+                long w = belief[i];
+                while (w != 0) {
+                    int cell = (i << 6) + Long.numberOfTrailingZeros(w);
+                    minDist = Math.min(minDist, Math.abs(xGoal - cell % width) + Math.abs(yGoal - cell / width));
+                    w &= w - 1;
+                }
+            }
+            return minDist;
         }
 
         @Override
         public int compareTo(SearchNode o) {
-            return (int) Math.signum(priority() - o.priority());
+            return Double.compare(priority(), o.priority());
         }
 
         @Override
@@ -161,5 +400,42 @@ public class BlindMazeProblem extends InformedSearchProblem {
     }
     //===============End of BlindMazeNode class==================
 
-}
+    // sensorless planning from "anywhere on the map" to the far corner of a
+    //  random maze, with and without subsumption pruning. Optimal plans get
+    //  expensive fast: 10x10 takes a few seconds, 12x12 is already too big.
+    //  Then the same on a largeSize maze with weighted A*.
+    //  usage: BlindMazeProblem [size] [wallPercent] [largeSize] [weight]
+    public static void main(String args[]) {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        int wallPercent = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        int largeSize = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+        double weight = (args.length > 3) ? Double.parseDouble(args[3]) : 5;
+        Maze maze = GridSearch.randomMaze(size, wallPercent, 76);
 
+        BlindMazeProblem problem = new BlindMazeProblem(maze, size - 1, size - 1);
+        System.out.println("start belief: " + ((BlindMazeNode) problem.startNode).getBeliefSize() + " cells");
+
+        for (boolean pruning : new boolean[]{false, true}) {
+            problem.setSubsumptionPruning(pruning);
+            long start = System.nanoTime();
+            List<SearchNode> path = problem.astarSearch();
+            long elapsed = System.nanoTime() - start;
+            System.out.println("A*" + (pruning ? " with pruning: " : ": ")
+                    + ((path == null) ? "no plan" : (path.size() - 1) + " moves")
+                    + " in " + String.format("%.1f", elapsed / 1e6) + " ms");
+            problem.printStats();
+        }
+
+        Maze large = GridSearch.randomMaze(largeSize, wallPercent, 76);
+        BlindMazeProblem largeProblem = new BlindMazeProblem(large, largeSize - 1, largeSize - 1);
+        System.out.println(largeSize + "x" + largeSize + " start belief: "
+                + ((BlindMazeNode) largeProblem.startNode).getBeliefSize() + " cells");
+        long start = System.nanoTime();
+        List<SearchNode> path = largeProblem.weightedAstarSearch(weight);
+        long elapsed = System.nanoTime() - start;
+        System.out.println("weighted A* (" + weight + "): "
+                + ((path == null) ? "no plan" : (path.size() - 1) + " moves")
+                + " in " + String.format("%.1f", elapsed / 1e6) + " ms");
+        largeProblem.printStats();
+    }
+}
@@ -0,0 +1,551 @@
+package assignment_mazeworld;
+
+/**
+ * Description: Conflict-Based Search (Sharon et al. 2015) for many agents on
+ * a Maze. Unlike GeneralMazeProblem, which searches the joint state of all
+ * agents one turn at a time, every agent is planned on its own by a
+ * space-time A* over (cell, time). Collisions are then resolved in a
+ * high-level constraint tree. Every node of that tree has a set of constraints,
+ * one plan per agent that respects them, and the sum of the plans' costs. When
+ * two plans collide, the node splits into two children, each forbidding the
+ * collision to one of the two agents, and only that agent is replanned.
+ *
+ * All agents move at the same time: each step an agent moves N, E, S, W or
+ * waits. Two agents may not be in the same cell at the same time (vertex
+ * conflict) or swap cells in one step (edge conflict). An agent that has
+ * reached its goal waits there. Cells are numbered like GridSearch
+ * (y * width + x); GeneralMazeProblem.conflictBasedSearch turns the plans
+ * into GeneralMazeNodes.
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+public class ConflictBasedSearch {
+
+	// moves in DistanceTables / GridSearch order, then waiting; the index is
+	//  also the direction stored in edge constraints
+	private static final int[][] MOVES = {Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST, Maze.ZERO};
+	private static final int WAIT = 4;
+
+	private final Maze maze;
+	private final int width;
+	private final int numCells;
+	private final int numAgents;
+	private final int[] startCells;
+	private final int[] goalCells;
+	// true distance to each agent's goal; the low-level heuristic
+	private final int[][] goalDistances;
+
+	// constraint tree nodes expanded, and space-time states expanded by the
+	//  low-level searches, in the last solve()
+	private int highLevelExpanded;
+	private int lowLevelExpanded;
+	private int maxOpenSize;
+
+	private double suboptimality = 1.0;
+
+	// constraint tree nodes solve() may expand before it gives up (0 for no
+	//  limit). Optimal CBS on a crowded maze can branch for hours, and the
+	//  driver and BatchSolver would wait the whole time.
+	public static final int DEFAULT_NODE_LIMIT = 20000;
+	private int nodeLimit = DEFAULT_NODE_LIMIT;
+	private boolean nodeLimitReached;
+
+	// scratch for findConflicts: who is in each cell at time t and t - 1,
+	//  valid where the stamp matches
+	private final int[] occupant;
+	private final int[] occupantStamp;
+	private final int[] previousOccupant;
+	private final int[] previousStamp;
+
+	public ConflictBasedSearch(Maze m, int[][] starts, int[][] goals) {
+		maze = m;
+		width = m.width;
+		numCells = m.width * m.height;
+		numAgents = starts.length;
+		startCells = new int[numAgents];
+		goalCells = new int[numAgents];
+		goalDistances = new int[numAgents][];
+		for (int i = 0; i < numAgents; i++) {
+			startCells[i] = starts[i][1] * width + starts[i][0];
+			goalCells[i] = goals[i][1] * width + goals[i][0];
+			goalDistances[i] = DistanceTables.get(m, goals[i][0], goals[i][1]);
+		}
+		occupant = new int[numCells];
+		occupantStamp = new int[numCells];
+		previousOccupant = new int[numCells];
+		previousStamp = new int[numCells];
+	}
+
+	// 1 (the default) for optimal plans. Above 1 the high level may expand
+	//  any node within that factor of the cheapest open one, and picks the
+	//  one with the fewest collisions (a focal search, as in ECBS). The sum
+	//  of costs is then at most that factor times the optimum, but crowded
+	//  problems with many equally short plans finish far sooner.
+	public void setSuboptimality(double w) {
+		if (w < 1) {
+			throw new IllegalArgumentException("suboptimality factor must be at least 1: " + w);
+		}
+		suboptimality = w;
+	}
+
+	public void setNodeLimit(int limit) {
+		if (limit < 0) {
+			throw new IllegalArgumentException("node limit must not be negative: " + limit);
+		}
+		nodeLimit = limit;
+	}
+
+	// did the last solve() return null because it hit the node limit (rather
+	//  than because there is no solution)?
+	public boolean isNodeLimitReached() {
+		return nodeLimitReached;
+	}
+
+	public int getHighLevelExpanded() {
+		return highLevelExpanded;
+	}
+
+	public int getLowLevelExpanded() {
+		return lowLevelExpanded;
+	}
+
+	public int getMaxOpenSize() {
+		return maxOpenSize;
+	}
+
+	public int xOf(int cell) {
+		return cell % width;
+	}
+
+	public int yOf(int cell) {
+		return cell / width;
+	}
+
+	//===============Constraint class======================
+	// a forbidden (agent, cell, time), or with direction >= 0 a forbidden move
+	//  into cell at time, made in that direction. Each tree node adds one
+	//  constraint to its parent's list, so the lists share their tails.
+	private static final class Constraint {
+		final int agent;
+		final int cell;
+		final int time;
+		final int direction;
+		final Constraint next;
+
+		Constraint(int agent, int cell, int time, int direction, Constraint next) {
+			this.agent = agent;
+			this.cell = cell;
+			this.time = time;
+			this.direction = direction;
+			this.next = next;
+		}
+	}
+	//=====================================================
+
+	//===============TreeNode class========================
+	private static final class TreeNode {
+		final Constraint constraints;
+		// paths[i][t] = cell of agent i at time t, up to its arrival at the goal
+		final int[][] paths;
+		final int cost;
+		// the first collision found in paths, filled in by findConflicts
+		int conflictA, conflictB, conflictCell, conflictTime;
+		// for an edge conflict, the cell agent a moved from (-1 for a vertex conflict)
+		int conflictFrom;
+		int numConflicts;
+		IndexedHeap.Entry<TreeNode> openEntry;
+
+		TreeNode(Constraint constraints, int[][] paths) {
+			this.constraints = constraints;
+			this.paths = paths;
+			int sum = 0;
+			for (int[] path : paths) {
+				sum += path.length - 1;
+			}
+			cost = sum;
+		}
+	}
+	//=====================================================
+
+	/**
+	 * Plans every agent and returns paths[i][t], the cell of agent i at time
+	 * t (each path ends on its agent's goal; the agent waits there after), or
+	 * null if there is no solution or none was found within the node limit
+	 * (see setNodeLimit). The plans minimize the sum of path costs (within
+	 * the suboptimality factor, see setSuboptimality).
+	 */
+	public int[][] solve() {
+		highLevelExpanded = 0;
+		lowLevelExpanded = 0;
+		maxOpenSize = 0;
+		nodeLimitReached = false;
+
+		int[][] paths = new int[numAgents][];
+		for (int i = 0; i < numAgents; i++) {
+			paths[i] = planAgent(i, null, paths);
+			if (paths[i] == null) {
+				return null;
+			}
+		}
+
+		// open has every unexpanded node, cheapest first. The ones within the
+		//  suboptimality bound of the cheapest are also in focal, fewest
+		//  collisions first; the rest wait in waiting until the bound rises.
+		//  (With suboptimality 1, focal is just the cheapest nodes.)
+		IndexedHeap<TreeNode> open = new IndexedHeap<TreeNode>();
+		IndexedHeap<TreeNode> focal = new IndexedHeap<TreeNode>();
+		IndexedHeap<TreeNode> waiting = new IndexedHeap<TreeNode>();
+		TreeNode root = new TreeNode(null, paths);
+		findConflicts(root);
+		double bound = suboptimality * root.cost;
+		push(root, bound, open, focal, waiting);
+
+		while (!open.isEmpty()) {
+			if (nodeLimit > 0 && highLevelExpanded == nodeLimit) {
+				nodeLimitReached = true;
+				return null;
+			}
+			maxOpenSize = Math.max(maxOpenSize, open.size());
+			TreeNode node = focal.poll().getItem();
+			open.remove(node.openEntry);
+			highLevelExpanded++;
+			if (node.numConflicts == 0) {
+				return node.paths;
+			}
+
+			// one child per agent in the collision, each forbidding that agent its
+			//  part in it. If a child is as cheap as the node and collides less,
+			//  take its plan for the node instead of branching (the bypass of
+			//  Boyarski et al. 2015) and split the node again on its next conflict.
+			TreeNode[] children = new TreeNode[2];
+			boolean bypassed = false;
+			for (int side = 0; side < 2 && !bypassed; side++) {
+				Constraint constraint;
+				if (node.conflictFrom < 0) {
+					int agent = (side == 0) ? node.conflictA : node.conflictB;
+					constraint = new Constraint(agent, node.conflictCell, node.conflictTime, -1, node.constraints);
+				} else if (side == 0) {
+					constraint = new Constraint(node.conflictA, node.conflictCell, node.conflictTime,
+							direction(node.conflictFrom, node.conflictCell), node.constraints);
+				} else {
+					// agent b made the opposite move, from conflictCell into conflictFrom
+					constraint = new Constraint(node.conflictB, node.conflictFrom, node.conflictTime,
+							direction(node.conflictCell, node.conflictFrom), node.constraints);
+				}
+
+				int[][] childPaths = node.paths.clone();
+				childPaths[constraint.agent] = planAgent(constraint.agent, constraint, childPaths);
+				if (childPaths[constraint.agent] == null) {
+					continue;
+				}
+				TreeNode child = new TreeNode(constraint, childPaths);
+				findConflicts(child);
+				if (child.cost == node.cost && child.numConflicts < node.numConflicts) {
+					TreeNode bypass = new TreeNode(node.constraints, childPaths);
+					findConflicts(bypass);
+					push(bypass, bound, open, focal, waiting);
+					bypassed = true;
+				}
+				children[side] = child;
+			}
+			if (!bypassed) {
+				for (TreeNode child : children) {
+					if (child != null) {
+						push(child, bound, open, focal, waiting);
+					}
+				}
+			}
+
+			// the cheapest open node only gets more expensive; let everything
+			//  under the raised bound into focal
+			if (!open.isEmpty() && suboptimality * open.peek().getPriority() > bound) {
+				bound = suboptimality * open.peek().getPriority();
+				while (!waiting.isEmpty() && waiting.peek().getPriority() <= bound) {
+					TreeNode next = waiting.poll().getItem();
+					focal.add(next, next.numConflicts, -next.cost);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static void push(TreeNode node, double bound, IndexedHeap<TreeNode> open,
+			IndexedHeap<TreeNode> focal, IndexedHeap<TreeNode> waiting) {
+		node.openEntry = open.add(node, node.cost, -node.numConflicts);
+		if (node.cost <= bound) {
+			focal.add(node, node.numConflicts, -node.cost);
+		} else {
+			waiting.add(node, node.cost, 0);
+		}
+	}
+
+	// the index in MOVES of the step from one cell to a neighbour
+	private int direction(int from, int to) {
+		int dx = xOf(to) - xOf(from);
+		int dy = yOf(to) - yOf(from);
+		for (int d = 0; d < MOVES.length; d++) {
+			if (MOVES[d][0] == dx && MOVES[d][1] == dy) {
+				return d;
+			}
+		}
+		throw new IllegalArgumentException("cells " + from + " and " + to + " are not adjacent");
+	}
+
+	private static int cellAt(int[] path, int t) {
+		return path[Math.min(t, path.length - 1)];
+	}
+
+	// counts the collisions between node's paths and remembers the first one
+	private void findConflicts(TreeNode node) {
+		int[][] paths = node.paths;
+		int horizon = 0;
+		for (int[] path : paths) {
+			horizon = Math.max(horizon, path.length);
+		}
+
+		node.numConflicts = 0;
+		Arrays.fill(occupantStamp, 0);
+		Arrays.fill(previousStamp, 0);
+		for (int t = 0; t < horizon; t++) {
+			int stamp = t + 1;
+			for (int a = 0; a < numAgents; a++) {
+				int cell = cellAt(paths[a], t);
+				if (occupantStamp[cell] == stamp) {
+					recordConflict(node, occupant[cell], a, cell, t, -1);
+				} else {
+					occupantStamp[cell] = stamp;
+					occupant[cell] = a;
+				}
+				// a moved from -> cell while whoever was in cell moved into from
+				if (t > 0) {
+					int from = cellAt(paths[a], t - 1);
+					if (from != cell && previousStamp[cell] == t) {
+						int b = previousOccupant[cell];
+						if (b != a && cellAt(paths[b], t) == from && a < b) {
+							recordConflict(node, a, b, cell, t, from);
+						}
+					}
+				}
+			}
+			// the swap check above needs who was where at t - 1 for every agent
+			for (int a = 0; a < numAgents; a++) {
+				int cell = cellAt(paths[a], t);
+				previousStamp[cell] = stamp;
+				previousOccupant[cell] = a;
+			}
+		}
+	}
+
+	private static void recordConflict(TreeNode node, int a, int b, int cell, int time, int from) {
+		if (node.numConflicts == 0) {
+			node.conflictA = a;
+			node.conflictB = b;
+			node.conflictCell = cell;
+			node.conflictTime = time;
+			node.conflictFrom = from;
+		}
+		node.numConflicts++;
+	}
+
+	/**
+	 * Space-time A* for one agent under the constraints on it in the list.
+	 * Every step costs 1 and g is the time, so each (cell, time) is reached
+	 * at its final cost the first time. Among equally short plans it prefers
+	 * the one colliding least with the other agents' current paths (counted
+	 * along the whole plan), and then the later-time states (deeper first);
+	 * a queued state can still switch to a parent with fewer collisions.
+	 */
+	private int[] planAgent(int agent, Constraint constraints, int[][] otherPaths) {
+		// this agent's constraints, keyed by time * numCells + cell (vertex) or
+		//  (time * numCells + cell) * MOVES.length + direction (edge)
+		LongIndexMap vertexConstraints = new LongIndexMap(16);
+		LongIndexMap edgeConstraints = new LongIndexMap(16);
+		int lastConstraintTime = 0;
+		int lastGoalConstraintTime = -1;
+		for (Constraint c = constraints; c != null; c = c.next) {
+			if (c.agent != agent) {
+				continue;
+			}
+			long key = (long) c.time * numCells + c.cell;
+			if (c.direction < 0) {
+				vertexConstraints.put(key, 1);
+				if (c.cell == goalCells[agent]) {
+					lastGoalConstraintTime = Math.max(lastGoalConstraintTime, c.time);
+				}
+			} else {
+				edgeConstraints.put(key * MOVES.length + c.direction, 1);
+			}
+			lastConstraintTime = Math.max(lastConstraintTime, c.time);
+		}
+
+		int[] distance = goalDistances[agent];
+		int start = startCells[agent];
+		int goal = goalCells[agent];
+		if (distance[start] == DistanceTables.UNREACHABLE) {
+			return null;
+		}
+		// after the last constraint the plain shortest path works, so no
+		//  plan needs to be longer than this
+		int maxTime = lastConstraintTime + numCells;
+
+		LongIndexMap ids = new LongIndexMap(256);
+		int[] cells = new int[256];
+		int[] times = new int[256];
+		int[] parents = new int[256];
+		// collisions with the other agents' paths on the way to each state
+		int[] collided = new int[256];
+		BitSet closed = new BitSet();
+		IndexedIntHeap frontier = new IndexedIntHeap(256);
+
+		cells[0] = start;
+		times[0] = 0;
+		parents[0] = -1;
+		collided[0] = 0;
+		int count = 1;
+		ids.put(start, 0);
+		frontier.add(0, remaining(distance[start], 0, lastGoalConstraintTime), 0);
+
+		while (!frontier.isEmpty()) {
+			int id = frontier.poll();
+			closed.set(id);
+			lowLevelExpanded++;
+			int cell = cells[id];
+			int time = times[id];
+			if (cell == goal && time > lastGoalConstraintTime) {
+				int[] path = new int[time + 1];
+				for (int s = id; s >= 0; s = parents[s]) {
+					path[times[s]] = cells[s];
+				}
+				return path;
+			}
+			if (time == maxTime) {
+				continue;
+			}
+
+			int x = xOf(cell);
+			int y = yOf(cell);
+			int nextTime = time + 1;
+			for (int d = 0; d < MOVES.length; d++) {
+				int xNew = x + MOVES[d][0];
+				int yNew = y + MOVES[d][1];
+				if (d != WAIT && !maze.isLegal(xNew, yNew)) {
+					continue;
+				}
+				int next = yNew * width + xNew;
+				long key = (long) nextTime * numCells + next;
+				if (vertexConstraints.get(key) >= 0 || edgeConstraints.get(key * MOVES.length + d) >= 0) {
+					continue;
+				}
+				int f = nextTime + remaining(distance[next], nextTime, lastGoalConstraintTime);
+				int nextCollided = collided[id] + collisions(agent, otherPaths, next, nextTime);
+				int seen = ids.get(key);
+				if (seen >= 0) {
+					if (!closed.get(seen) && nextCollided < collided[seen]) {
+						parents[seen] = id;
+						collided[seen] = nextCollided;
+						frontier.decreaseKey(seen, f, tie(nextCollided, nextTime, maxTime));
+					}
+					continue;
+				}
+				if (count == cells.length) {
+					cells = Arrays.copyOf(cells, count * 2);
+					times = Arrays.copyOf(times, count * 2);
+					parents = Arrays.copyOf(parents, count * 2);
+					collided = Arrays.copyOf(collided, count * 2);
+				}
+				cells[count] = next;
+				times[count] = nextTime;
+				parents[count] = id;
+				collided[count] = nextCollided;
+				ids.put(key, count);
+				frontier.add(count, f, tie(nextCollided, nextTime, maxTime));
+				count++;
+			}
+		}
+		return null;
+	}
+
+	// heap tie-break (larger wins): fewer collisions, then later time
+	private static int tie(int collided, int time, int maxTime) {
+		long tie = (long) time - (long) collided * (maxTime + 1);
+		return (int) Math.max(tie, Integer.MIN_VALUE);
+	}
+
+	// lower bound on the steps left: the distance to the goal, but also
+	//  enough to still be on the way when the goal is forbidden at goalBlocked
+	private static int remaining(int distance, int time, int goalBlocked) {
+		return Math.max(distance, goalBlocked + 1 - time);
+	}
+
+	// how many other agents' current paths are in cell at time
+	private int collisions(int agent, int[][] paths, int cell, int time) {
+		int n = 0;
+		for (int a = 0; a < numAgents; a++) {
+			if (a != agent && paths[a] != null && cellAt(paths[a], time) == cell) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	// times CBS on a random 100x100 maze for growing numbers of agents. The
+	//  default suboptimality is GeneralMazeProblem.DEFAULT_CBS_SUBOPTIMALITY.
+	//  Optimal (1) runs into the node limit on some instances (sumOfCosts
+	//  -1; half a minute for the 40 agent one).
+	//  usage: ConflictBasedSearch [maxAgents] [size] [wallPercent] [suboptimality]
+	public static void main(String args[]) {
+		int maxAgents = (args.length > 0) ? Integer.parseInt(args[0]) : 50;
+		int size = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+		int wallPercent = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+		double suboptimality = (args.length > 3) ? Double.parseDouble(args[3])
+				: GeneralMazeProblem.DEFAULT_CBS_SUBOPTIMALITY;
+		Maze maze = GridSearch.randomMaze(size, wallPercent, 76);
+
+		System.out.println("agents,sumOfCosts,highLevelExpanded,lowLevelExpanded,millis");
+		for (int k = 10; k <= maxAgents; k += 10) {
+			Random random = new Random(k);
+			int[][] starts = new int[k][];
+			int[][] goals = new int[k][];
+			for (int i = 0; i < k; i++) {
+				starts[i] = freeCell(maze, random, starts, i, null);
+				goals[i] = freeCell(maze, random, goals, i, starts[i]);
+			}
+
+			ConflictBasedSearch cbs = new ConflictBasedSearch(maze, starts, goals);
+			cbs.setSuboptimality(suboptimality);
+			long t0 = System.nanoTime();
+			int[][] paths = cbs.solve();
+			long t1 = System.nanoTime();
+			int cost = -1;
+			if (paths != null) {
+				cost = 0;
+				for (int[] path : paths) {
+					cost += path.length - 1;
+				}
+			}
+			System.out.println(k + "," + cost + "," + cbs.getHighLevelExpanded() + ","
+					+ cbs.getLowLevelExpanded() + "," + String.format("%.1f", (t1 - t0) / 1e6));
+		}
+	}
+
+	// a random floor cell not used by agents 0..count-1, reachable from
+	//  from (when given) so every agent can get to its goal
+	private static int[] freeCell(Maze maze, Random random, int[][] used, int count, int[] from) {
+		int[] reach = (from == null) ? null : DistanceTables.get(maze, from[0], from[1]);
+		while (true) {
+			int x = random.nextInt(maze.width);
+			int y = random.nextInt(maze.height);
+			boolean taken = !maze.isLegal(x, y)
+					|| (reach != null && reach[y * maze.width + x] == DistanceTables.UNREACHABLE);
+			for (int i = 0; i < count && !taken; i++) {
+				taken = used[i][0] == x && used[i][1] == y;
+			}
+			if (!taken) {
+				return new int[]{x, y};
+			}
+		}
+	}
+}
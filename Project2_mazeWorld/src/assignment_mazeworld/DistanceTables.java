@@ -0,0 +1,90 @@
+package assignment_mazeworld;
+
+/**
+ * Description: exact shortest-path distances to a goal cell, for the
+ * true-distance heuristics of SimpleMazeProblem and GeneralMazeProblem.
+ * Moves are reversible, so a bfs out of the goal gives every cell's distance
+ * to it. There is one int[] per (maze, goal), indexed like GridSearch
+ * (y * width + x); it is computed on first use and then shared by every
+ * problem and thread that asks for the same maze and goal.
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class DistanceTables {
+
+	// table entry of a cell that can't reach the goal (or is a wall)
+	public static final int UNREACHABLE = -1;
+
+	private static final int[][] ACTIONS = {Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST};
+
+	// mazes are compared by identity and dropped with the maze; the inner map
+	//  is keyed by the goal cell. computeIfAbsent makes a second thread asking
+	//  for the same table wait for the first instead of running the bfs again.
+	//  A maze whose walls changed (a new Maze.getVersion) starts over.
+	private static final Map<Maze, Tables> cache =
+			Collections.synchronizedMap(new WeakHashMap<Maze, Tables>());
+
+	// the tables of one version of a maze
+	private static final class Tables {
+		final int version;
+		final ConcurrentHashMap<Integer, int[]> byGoal = new ConcurrentHashMap<Integer, int[]>();
+
+		Tables(int version) {
+			this.version = version;
+		}
+	}
+
+	private DistanceTables() {
+	}
+
+	// the shared table for goal (gx, gy); callers must not modify it
+	public static int[] get(final Maze maze, final int gx, final int gy) {
+		Tables tables;
+		synchronized (cache) {
+			tables = cache.get(maze);
+			if (tables == null || tables.version != maze.getVersion()) {
+				tables = new Tables(maze.getVersion());
+				cache.put(maze, tables);
+			}
+		}
+		return tables.byGoal.computeIfAbsent(gy * maze.width + gx, goal -> compute(maze, gx, gy));
+	}
+
+	private static int[] compute(Maze maze, int gx, int gy) {
+		int width = maze.width;
+		int[] distance = new int[width * maze.height];
+		Arrays.fill(distance, UNREACHABLE);
+		if (!maze.isLegal(gx, gy)) {
+			return distance;
+		}
+
+		// every cell is queued at most once
+		int[] queue = new int[distance.length];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = gy * width + gx;
+		distance[gy * width + gx] = 0;
+		while (head < tail) {
+			int cell = queue[head++];
+			int x = cell % width;
+			int y = cell / width;
+			for (int[] action : ACTIONS) {
+				int xNew = x + action[0];
+				int yNew = y + action[1];
+				if (maze.isLegal(xNew, yNew)) {
+					int next = yNew * width + xNew;
+					if (distance[next] == UNREACHABLE) {
+						distance[next] = distance[cell] + 1;
+						queue[tail++] = next;
+					}
+				}
+			}
+		}
+		return distance;
+	}
+}
@@ -0,0 +1,441 @@
+package assignment_mazeworld;
+
+/**
+ * Description: breadth-first search with its layers on disk, for
+ * SearchProblem.externalBreadthFirstSearch. Every state is packed into a
+ * long (SearchProblem.PackedStateSpace) and every layer is a file of sorted,
+ * distinct packed states. Layer d+1 is built from layer d in two passes:
+ *  - the successors of layer d go into a buffer of memoryStates longs. Each
+ *    time it fills up it is sorted, cleared of duplicates and written out
+ *    as a run.
+ *  - the runs are merged. Copies of a state meet in the merge, so that is
+ *    where duplicates are dropped (delayed duplicate detection: nothing is
+ *    looked up while successors are generated). In the same sequential pass
+ *    the merged states are checked against the visited file, every earlier
+ *    layer in one sorted file; the new ones are layer d+1, and they are
+ *    merged into a new visited file.
+ * Only the buffer and a window of each open file are in memory. Files are
+ * read through memory-mapped windows and written through a buffered
+ * channel (mapping for writing needs the size up front). There are no
+ * parent pointers: once the goal is found, the path is rebuilt by going
+ * back a layer at a time to a state with a successor on the path.
+ * usage: ExternalBreadthFirstSearch [size] [numAgents] [memoryStates]
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import assignment_mazeworld.SearchProblem.PackedStateSpace;
+import assignment_mazeworld.SearchProblem.SearchNode;
+
+class ExternalBreadthFirstSearch {
+
+	// longs per mapped window of a file being read, and per write buffer
+	private static final int WINDOW_LONGS = 1 << 16;
+
+	// most runs merged at once; each holds a file open and a window mapped.
+	//  More runs than this are first merged into fewer, longer ones.
+	private static final int MAX_FAN_IN = 256;
+
+	private final SearchProblem problem;
+	private final PackedStateSpace space;
+	private final File parent;
+	private final long[] buffer;
+	private Path directory;
+	private int runCount; // names the run files
+
+	// the goal, once a layer turns out to hold it
+	private boolean goalFound;
+	private long goalState;
+
+	// states in the visited file at the end, and the most bytes on disk at once
+	private long visitedStates;
+	private long peakDiskBytes;
+
+	public ExternalBreadthFirstSearch(SearchProblem problem, PackedStateSpace space, File directory, int memoryStates) {
+		if (memoryStates < 1) {
+			throw new IllegalArgumentException("need room for at least one state: " + memoryStates);
+		}
+		this.problem = problem;
+		this.space = space;
+		parent = directory;
+		buffer = new long[memoryStates];
+	}
+
+	// the path to a nearest goal, or null if there is none. Works in a new
+	//  directory under the one given, deleted again at the end.
+	public List<SearchNode> search() throws IOException {
+		directory = Files.createTempDirectory(parent.toPath(), "bfs-");
+		try {
+			long start = space.packState(problem.startNode);
+			LongWriter first = new LongWriter(layerFile(0), 1);
+			first.write(start);
+			first.close();
+			Files.copy(layerFile(0), visitedFile());
+			visitedStates = 1;
+
+			for (int depth = 0; ; depth++) {
+				List<Path> runs = expand(depth);
+				if (goalFound) {
+					for (Path run : runs) {
+						Files.delete(run);
+					}
+					return path(depth);
+				}
+				long layerSize = merge(depth, runs);
+				problem.updateFrontier((int) Math.min(Integer.MAX_VALUE, layerSize));
+				if (layerSize == 0) {
+					return null;
+				}
+			}
+		} finally {
+			deleteAll();
+		}
+	}
+
+	// expands layer depth into sorted runs of its successors; stops early,
+	//  with goalFound set, at a goal
+	private List<Path> expand(int depth) throws IOException {
+		List<Path> runs = new ArrayList<Path>();
+		int filled = 0;
+		LongReader layer = new LongReader(layerFile(depth));
+		while (layer.hasNext()) {
+			long state = layer.next();
+			SearchNode node = space.unpackState(state, depth);
+			problem.incrementNodeCount();
+			if (node.goalTest()) {
+				goalFound = true;
+				goalState = state;
+				layer.close();
+				return runs;
+			}
+			for (SearchNode child : node.getSuccessors()) {
+				if (filled == buffer.length) {
+					runs.add(writeRun(filled));
+					filled = 0;
+				}
+				buffer[filled++] = space.packState(child);
+				problem.updateMemory(filled);
+			}
+		}
+		if (filled > 0) {
+			runs.add(writeRun(filled));
+		}
+		return runs;
+	}
+
+	private Path writeRun(int filled) throws IOException {
+		Arrays.sort(buffer, 0, filled);
+		Path run = directory.resolve("run-" + runCount++);
+		LongWriter out = new LongWriter(run, filled);
+		for (int i = 0; i < filled; i++) {
+			if (i == 0 || buffer[i] != buffer[i - 1]) {
+				out.write(buffer[i]);
+			}
+		}
+		out.close();
+		return run;
+	}
+
+	// merges the runs into layer depth + 1, leaving out duplicates and
+	//  visited states, and adds the layer to the visited file. Returns the
+	//  size of the new layer.
+	private long merge(int depth, List<Path> runs) throws IOException {
+		while (runs.size() > MAX_FAN_IN) {
+			runs = mergePass(runs);
+		}
+		RunMerge merged = new RunMerge(runs);
+		LongReader visited = new LongReader(visitedFile());
+		Path nextVisitedFile = directory.resolve("visited.next");
+		LongWriter nextVisited = new LongWriter(nextVisitedFile, WINDOW_LONGS);
+		LongWriter layer = new LongWriter(layerFile(depth + 1), WINDOW_LONGS);
+
+		while (merged.hasNext()) {
+			long state = merged.next();
+			while (visited.hasNext() && visited.peek() < state) {
+				nextVisited.write(visited.next());
+			}
+			if (visited.hasNext() && visited.peek() == state) {
+				continue; // reached in an earlier layer
+			}
+			layer.write(state);
+			nextVisited.write(state);
+		}
+		while (visited.hasNext()) {
+			nextVisited.write(visited.next());
+		}
+		layer.close();
+		nextVisited.close();
+		trackDisk(); // the most there is at once: the runs and both visited files
+
+		for (Path run : runs) {
+			Files.delete(run);
+		}
+		Files.move(nextVisitedFile, visitedFile(), StandardCopyOption.REPLACE_EXISTING);
+		visitedStates = nextVisited.count;
+		return layer.count;
+	}
+
+	// merges the runs MAX_FAN_IN at a time into longer runs
+	private List<Path> mergePass(List<Path> runs) throws IOException {
+		List<Path> longer = new ArrayList<Path>();
+		for (int i = 0; i < runs.size(); i += MAX_FAN_IN) {
+			List<Path> group = runs.subList(i, Math.min(runs.size(), i + MAX_FAN_IN));
+			Path run = directory.resolve("run-" + runCount++);
+			RunMerge merged = new RunMerge(group);
+			LongWriter out = new LongWriter(run, WINDOW_LONGS);
+			while (merged.hasNext()) {
+				out.write(merged.next());
+			}
+			out.close();
+			for (Path input : group) {
+				Files.delete(input);
+			}
+			longer.add(run);
+		}
+		return longer;
+	}
+
+	// walks back from the goal: each layer has a state the next step on the
+	//  path is a successor of
+	private List<SearchNode> path(int depth) throws IOException {
+		LinkedList<SearchNode> path = new LinkedList<SearchNode>();
+		path.addFirst(space.unpackState(goalState, depth));
+		long state = goalState;
+		for (int d = depth - 1; d >= 0; d--) {
+			LongReader layer = new LongReader(layerFile(d));
+			SearchNode predecessor = null;
+			while (predecessor == null) {
+				long candidate = layer.next(); // there is one: state is in layer d + 1
+				SearchNode node = space.unpackState(candidate, d);
+				for (SearchNode child : node.getSuccessors()) {
+					if (space.packState(child) == state) {
+						predecessor = node;
+						state = candidate;
+						break;
+					}
+				}
+			}
+			layer.close();
+			path.addFirst(predecessor);
+		}
+		return path;
+	}
+
+	public long getVisitedStates() {
+		return visitedStates;
+	}
+
+	public long getPeakDiskBytes() {
+		return peakDiskBytes;
+	}
+
+	private Path layerFile(int depth) {
+		return directory.resolve("layer-" + depth);
+	}
+
+	private Path visitedFile() {
+		return directory.resolve("visited");
+	}
+
+	private void trackDisk() throws IOException {
+		long bytes = 0;
+		for (File file : directory.toFile().listFiles()) {
+			bytes += file.length();
+		}
+		peakDiskBytes = Math.max(peakDiskBytes, bytes);
+	}
+
+	// best effort, so it can't hide the exception that ended the search
+	private void deleteAll() {
+		if (directory == null) {
+			return;
+		}
+		File[] files = directory.toFile().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.toFile().delete();
+	}
+
+
+	//================LongReader class=================
+	// reads a file of longs front to back, a mapped window at a time, with
+	//  the next value always loaded so readers can be compared in the merge
+	private static final class LongReader implements Comparable<LongReader> {
+		private final FileChannel channel;
+		private final long size;
+		private long position; // longs loaded so far
+		private LongBuffer window;
+		private long head;
+		private boolean hasHead;
+
+		LongReader(Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.READ);
+			size = channel.size() / 8;
+			advance();
+		}
+
+		boolean hasNext() {
+			return hasHead;
+		}
+
+		long peek() {
+			return head;
+		}
+
+		long next() throws IOException {
+			long value = head;
+			advance();
+			return value;
+		}
+
+		// for a reader stopped before the end; the mapping outlives the
+		//  channel, so at the end it closes itself
+		void close() throws IOException {
+			channel.close();
+		}
+
+		private void advance() throws IOException {
+			hasHead = position < size;
+			if (!hasHead) {
+				channel.close();
+				return;
+			}
+			if (window == null || !window.hasRemaining()) {
+				long longs = Math.min(WINDOW_LONGS, size - position);
+				window = channel.map(FileChannel.MapMode.READ_ONLY, position * 8, longs * 8).asLongBuffer();
+			}
+			head = window.get();
+			position++;
+		}
+
+		public int compareTo(LongReader other) {
+			return Long.compare(head, other.head);
+		}
+	}
+
+	//================RunMerge class=================
+	// the states of sorted runs of distinct states, merged, each state once
+	private static final class RunMerge {
+		private final PriorityQueue<LongReader> heads;
+
+		RunMerge(List<Path> runs) throws IOException {
+			heads = new PriorityQueue<LongReader>(Math.max(1, runs.size()));
+			for (Path run : runs) {
+				LongReader reader = new LongReader(run);
+				if (reader.hasNext()) {
+					heads.add(reader);
+				}
+			}
+		}
+
+		boolean hasNext() {
+			return !heads.isEmpty();
+		}
+
+		// a run holds a state at most once, so its copies are at the heads
+		//  of other runs
+		long next() throws IOException {
+			long state = pollHead();
+			while (!heads.isEmpty() && heads.peek().peek() == state) {
+				pollHead();
+			}
+			return state;
+		}
+
+		private long pollHead() throws IOException {
+			LongReader head = heads.poll();
+			long state = head.next();
+			if (head.hasNext()) {
+				heads.add(head);
+			}
+			return state;
+		}
+	}
+
+	//================LongWriter class=================
+	private static final class LongWriter {
+		private final FileChannel channel;
+		private final ByteBuffer bytes;
+		long count;
+
+		// a run from the buffer is often tiny, so the write buffer is no
+		//  larger than the longs the file is going to get
+		LongWriter(Path file, long expectedLongs) throws IOException {
+			bytes = ByteBuffer.allocate((int) Math.max(1, Math.min(WINDOW_LONGS, expectedLongs)) * 8);
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		void write(long value) throws IOException {
+			if (!bytes.hasRemaining()) {
+				flush();
+			}
+			bytes.putLong(value);
+			count++;
+		}
+
+		private void flush() throws IOException {
+			bytes.flip();
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			bytes.clear();
+		}
+
+		void close() throws IOException {
+			flush();
+			channel.close();
+		}
+	}
+
+	// breadthFirstSearch against externalBreadthFirstSearch on a joint
+	//  GeneralMazeProblem, the external one with memoryStates longs of buffer
+	public static void main(String args[]) throws IOException {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+		int numAgents = (args.length > 1) ? Integer.parseInt(args[1]) : 2;
+		int memoryStates = (args.length > 2) ? Integer.parseInt(args[2]) : 1 << 16;
+
+		Maze maze = GridSearch.randomMaze(size, 20, size);
+		GeneralMazeProblem problem = MazeBenchmark.generalProblem(maze, numAgents, new Random(size));
+		if (problem == null) {
+			System.out.println("no room for " + numAgents + " agents");
+			return;
+		}
+
+		long t0 = System.nanoTime();
+		List<SearchNode> inMemory = problem.breadthFirstSearch();
+		long t1 = System.nanoTime();
+		System.out.println("breadthFirstSearch: length " + ((inMemory == null) ? -1 : inMemory.size())
+				+ ", " + problem.getNodesExplored() + " expanded, " + problem.getMaxMemory() + " states in memory, "
+				+ String.format("%.1f", (t1 - t0) / 1e6) + " ms");
+
+		ExternalBreadthFirstSearch external = new ExternalBreadthFirstSearch(problem, problem,
+				new File(System.getProperty("java.io.tmpdir")), memoryStates);
+		problem.resetStats();
+		long t2 = System.nanoTime();
+		List<SearchNode> onDisk = external.search();
+		long t3 = System.nanoTime();
+		System.out.println("external: length " + ((onDisk == null) ? -1 : onDisk.size())
+				+ ", " + problem.getNodesExplored() + " expanded, " + problem.getMaxMemory() + " states in memory, "
+				+ external.getVisitedStates() + " visited, largest layer " + problem.getFrontierPeak() + ", "
+				+ (external.getPeakDiskBytes() >> 10) + " KB on disk, "
+				+ String.format("%.1f", (t3 - t2) / 1e6) + " ms");
+	}
+}
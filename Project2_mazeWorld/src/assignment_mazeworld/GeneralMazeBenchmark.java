@@ -0,0 +1,129 @@
+package assignment_mazeworld;
+
+/**
+ * Description: compares the indexed-heap A* (astarSearch) with the original
+ * PriorityQueue A* (astarSearchLazy) and the primitive-table A*
+ * (astarSearchPacked) on multi-agent GeneralMazeProblems of growing size,
+ * each with the manhattan and the true-distance heuristic. Prints one csv row per search.
+ * On the smaller mazes also runs the memory-bounded IDA* (transposition table
+ * of a quarter of A*'s peak memory) and SMA* (half of it).
+ * parallelAstarSearch runs on one thread per processor (at least two, so the
+ * messages between threads are part of the measurement).
+ * Then runs anytime A* (anytimeSearch) under a time budget, with one row per
+ * improved path; its algorithm column has the suboptimality bound.
+ * usage: GeneralMazeBenchmark [numAgents] [repeats] [budgetMillis]
+ */
+
+import java.util.List;
+import java.util.Random;
+
+public class GeneralMazeBenchmark {
+
+	private static final int[] SIZES = {10, 20, 30, 40};
+	private static final int WALL_PERCENT = 20;
+
+	// IDA* and SMA* repeat work to save memory, and past this size it takes
+	//  minutes
+	private static final int MEMORY_BOUNDED_MAX_SIZE = 30;
+
+	private static final int HDA_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	// anytime A* starts at this heuristic weight and lowers it by ARA_STEP
+	private static final double ARA_WEIGHT = 3;
+	private static final double ARA_STEP = 0.5;
+
+	public static void main(String args[]) {
+		int numAgents = (args.length > 0) ? Integer.parseInt(args[0]) : 2;
+		int repeats = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+		long budgetMillis = (args.length > 2) ? Long.parseLong(args[2]) : 100;
+
+		System.out.println("size,agents,algorithm,pathLength,nodesExplored,maxMemory,"
+				+ "frontierPeak,reopened,millis");
+		for (int size : SIZES) {
+			Maze maze = GridSearch.randomMaze(size, WALL_PERCENT, size);
+			Random random = new Random(size);
+			int[][] starts = new int[numAgents][];
+			int[][] goals = new int[numAgents][];
+			for (int i = 0; i < numAgents; i++) {
+				starts[i] = freeCell(maze, random, starts, i);
+				goals[i] = freeCell(maze, random, goals, i);
+			}
+
+			GeneralMazeProblem problem = new GeneralMazeProblem(maze, starts, goals);
+			for (int r = 0; r < repeats; r++) { // the last repeat is the one to read
+				run("astar-indexed", problem, size, numAgents);
+				int astarMemory = problem.getMaxMemory();
+				run("astar-lazy", problem, size, numAgents);
+				run("astar-packed", problem, size, numAgents);
+				run("astar-hda-" + HDA_THREADS, problem, size, numAgents);
+				problem.setTrueDistanceHeuristic(true);
+				run("astar-truedist", problem, size, numAgents);
+				run("astar-packed-truedist", problem, size, numAgents);
+				problem.setTrueDistanceHeuristic(false);
+				if (size <= MEMORY_BOUNDED_MAX_SIZE) {
+					run("idastar-tt", problem, size, numAgents, astarMemory / 4);
+					run("smastar", problem, size, numAgents, astarMemory / 2);
+				}
+			}
+			runAnytime(problem, size, numAgents, budgetMillis);
+		}
+	}
+
+	private static void run(String name, GeneralMazeProblem problem, int size, int numAgents) {
+		run(name, problem, size, numAgents, 0);
+	}
+
+	// memoryBudget: table size for IDA*, node budget for SMA*
+	private static void run(String name, GeneralMazeProblem problem, int size, int numAgents, int memoryBudget) {
+		long start = System.nanoTime();
+		List<SearchProblem.SearchNode> path;
+		if (name.equals("idastar-tt")) {
+			path = problem.idaStarSearch(memoryBudget);
+		} else if (name.equals("smastar")) {
+			path = problem.smaStarSearch(memoryBudget);
+		} else if (name.equals("astar-lazy")) {
+			path = problem.astarSearchLazy();
+		} else if (name.startsWith("astar-hda")) {
+			path = problem.parallelAstarSearch(HDA_THREADS);
+		} else if (name.startsWith("astar-packed")) {
+			path = problem.astarSearchPacked();
+		} else {
+			path = problem.astarSearch();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(size + "," + numAgents + "," + name + ","
+				+ ((path == null) ? -1 : path.size()) + ","
+				+ problem.getNodesExplored() + "," + problem.getMaxMemory() + ","
+				+ problem.getFrontierPeak() + "," + problem.getReopenedNodes() + ","
+				+ String.format("%.3f", elapsed / 1e6));
+	}
+
+	private static void runAnytime(final GeneralMazeProblem problem, final int size, final int numAgents,
+			long budgetMillis) {
+		final long start = System.nanoTime();
+		problem.anytimeSearch(ARA_WEIGHT, ARA_STEP, budgetMillis, new InformedSearchProblem.SolutionListener() {
+			public void solutionFound(List<SearchProblem.SearchNode> path, double cost, double bound) {
+				System.out.println(size + "," + numAgents + "," + String.format("ara-%.2f", bound) + ","
+						+ path.size() + "," + problem.getNodesExplored() + "," + problem.getMaxMemory() + ","
+						+ problem.getFrontierPeak() + "," + problem.getReopenedNodes() + ","
+						+ String.format("%.3f", (System.nanoTime() - start) / 1e6));
+			}
+		});
+	}
+
+	// a random floor cell that is not already used by agents 0..count-1
+	private static int[] freeCell(Maze maze, Random random, int[][] used, int count) {
+		while (true) {
+			int x = random.nextInt(maze.width);
+			int y = random.nextInt(maze.height);
+			boolean taken = !maze.isLegal(x, y);
+			for (int i = 0; i < count && !taken; i++) {
+				taken = used[i][0] == x && used[i][1] == y;
+			}
+			if (!taken) {
+				return new int[]{x, y};
+			}
+		}
+	}
+}
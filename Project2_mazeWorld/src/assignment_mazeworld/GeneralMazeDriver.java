@@ -60,6 +60,16 @@ public class GeneralMazeDriver extends Application {
 //        int numBots = genMazeProblem.getNumAgents();
         animationPathList.add(new AnimationPath(mazeView, genAstarPath));
 
+        // the same problem with all agents moving at once (conflict-based search)
+        List<SearchNode> cbsPath = genMazeProblem.conflictBasedSearch();
+        if (cbsPath == null && genMazeProblem.isCbsNodeLimitReached()) {
+            System.out.println("CBS gave up after " + ConflictBasedSearch.DEFAULT_NODE_LIMIT + " constraint tree nodes");
+        } else {
+            System.out.println(cbsPath);
+        }
+        System.out.println("GeneralMaze CBS: ");
+        genMazeProblem.printStats();
+
 //        System.out.println(genMazeProblem.startNode); //start
 //        System.out.println(genMazeProblem.startNode.goalTest());
 //        System.out.println(genMazeProblem.startNode.getSuccessors());
@@ -6,45 +6,360 @@ package assignment_mazeworld;
  * It will be able to create problems with multiple robots and their goals.
  */
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
 
 // Find a path for a multiple agent to get from a start location (xStart, yStart)
 //  to a goal location (xGoal, yGoal)
 
-public class GeneralMazeProblem extends InformedSearchProblem {
+public class GeneralMazeProblem extends InformedSearchProblem implements SearchProblem.PackedStateSpace {
 
     private static int actions[][] = {Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST, Maze.ZERO};
 
 //    private int xStart, yStart, xGoal, yGoal;
-
     private int[][] starts_xy; //array of [[xStart_1, yStart_1],...,[xStart_i, yStart_i],...,[xStart_k, yStart_k]] for start of the ith agent
     private int[][] goals_xy; //array of [[xGoal_1, yGoal_1],...,[xGoal_i, yGoal_i],...,[xGoal_k, yGoal_k]] for goal of the ith agent
     private int numAgents;
     private Maze maze;
 
+    //====packed states====
+    // every agent's [x,y] takes bitsPerAgent bits of a long: x in the low
+    //  bitsX bits, y above it. agentsPerWord agents share a long and a state
+    //  needs numWords longs (one for a handful of agents on a normal maze).
+    private int bitsX, bitsY, bitsPerAgent, agentsPerWord, numWords;
+    private long maskX, maskY;
+    // the goal positions packed the same way (the goal ignores the turn)
+    private long goalPacked;
+    private long[] goalWords;
+    // bit position of the turn when positions and turn fit in one long
+    //  together (the key astarSearchPacked uses); -1 when they don't
+    private int turnShift;
+
+    // true-distance heuristic (see setTrueDistanceHeuristic): distance
+    //  tables to each agent's goal, or null for manhattan distance
+    private int[][] goalDistances;
+    // agentDistance of an agent that can't reach its goal at all
+    private static final int NO_PATH = Integer.MAX_VALUE / 4;
+
+    // constraint tree nodes conflictBasedSearch may expand (0 for no limit),
+    //  and whether the last run gave up on that limit
+    private int cbsNodeLimit = ConflictBasedSearch.DEFAULT_NODE_LIMIT;
+    private boolean cbsNodeLimitReached;
+
     public GeneralMazeProblem(Maze m, int[][] starts, int[][] goals) {
 
         starts_xy = starts;
         goals_xy = goals;
         numAgents = starts.length;
+        maze = m;
+
+        bitsX = bitsFor(m.width);
+        bitsY = bitsFor(m.height);
+        bitsPerAgent = bitsX + bitsY;
+        agentsPerWord = 64 / bitsPerAgent;
+        numWords = (numAgents + agentsPerWord - 1) / agentsPerWord;
+        maskX = (1L << bitsX) - 1;
+        maskY = (1L << bitsY) - 1;
+        int positionBits = numAgents * bitsPerAgent;
+        turnShift = (numWords == 1 && positionBits + bitsFor(numAgents) <= 64) ? positionBits : -1;
+
+        long[] packedGoals = pack(goals);
+        if (numWords == 1) {
+            goalPacked = packedGoals[0];
+        } else {
+            goalWords = packedGoals;
+        }
 
         startNode = new GeneralMazeNode(starts,0,0);
-        maze = m;
     }
 
     public int getNumAgents(){
         return numAgents;
     }
 
+    /**
+     * Switches the heuristic between the sum of manhattan distances (the
+     * default) and the sum of true maze distances, looked up in tables
+     * from a bfs out of each goal (see DistanceTables; shared per maze and
+     * goal). Both are admissible; the true distances see the walls.
+     */
+    public void setTrueDistanceHeuristic(boolean on) {
+        if (!on) {
+            goalDistances = null;
+            return;
+        }
+        int[][] tables = new int[numAgents][];
+        for (int i = 0; i < numAgents; i++) {
+            tables[i] = DistanceTables.get(maze, goals_xy[i][0], goals_xy[i][1]);
+        }
+        goalDistances = tables;
+    }
+
+    // bits needed for the values 0 .. n-1
+    private static int bitsFor(int n) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(n - 1));
+    }
+
+    private long[] pack(int[][] positions) {
+        long[] words = new long[numWords];
+        for (int i = 0; i < positions.length; i++) {
+            words[i / agentsPerWord] = withAgent(words[i / agentsPerWord], i, positions[i][0], positions[i][1]);
+        }
+        return words;
+    }
+
+    // word with agent i (an agent stored in this word) moved to x, y
+    private long withAgent(long word, int i, int x, int y) {
+        int shift = (i % agentsPerWord) * bitsPerAgent;
+        long agentMask = ((maskY << bitsX) | maskX) << shift;
+        return (word & ~agentMask) | (((long) y << bitsX | x) << shift);
+    }
+
+    private int xIn(long word, int i) {
+        return (int) ((word >>> ((i % agentsPerWord) * bitsPerAgent)) & maskX);
+    }
+
+    private int yIn(long word, int i) {
+        return (int) ((word >>> ((i % agentsPerWord) * bitsPerAgent + bitsX)) & maskY);
+    }
+
+    // lower bound on the moves agent i still needs from x, y; NO_PATH if
+    //  the true distance tables say it can't get there
+    private int agentDistance(int i, int x, int y) {
+        if (goalDistances != null) {
+            int d = goalDistances[i][y * maze.width + x];
+            return (d == DistanceTables.UNREACHABLE) ? NO_PATH : d;
+        }
+        return Math.abs(goals_xy[i][0] - x) + Math.abs(goals_xy[i][1] - y);
+    }
+
+    // is x, y free of every agent but mover? (all agents in one word)
+    private boolean isFreeIn(long word, int mover, int x, int y) {
+        for (int i = 0; i < numAgents; i++) {
+            if (i != mover && xIn(word, i) == x && yIn(word, i) == y) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A* like astarSearch, but over packed states with primitive tables: a
+     * LongIndexMap from the packed positions and turn to a state id, and g,
+     * parent and the closed set in flat arrays indexed by id. Nothing is
+     * allocated per node except the table growth and the returned path.
+     * Needs the positions and the turn to fit in one long; falls back to
+     * astarSearch when they don't.
+     */
+    public List<SearchNode> astarSearchPacked() {
+        if (turnShift < 0) {
+            return astarSearch();
+        }
+        resetStats();
+
+        long positionMask = (1L << turnShift) - 1;
+        LongIndexMap ids = new LongIndexMap(1024);
+        long[] keys = new long[1024];
+        int[] g = new int[1024];
+        int[] parent = new int[1024];
+        BitSet closed = new BitSet();
+        IndexedIntHeap frontier = new IndexedIntHeap(1024);
+
+        long startKey = ((GeneralMazeNode) startNode).packed; // turn 0
+        int count = 1;
+        keys[0] = startKey;
+        g[0] = 0;
+        parent[0] = -1;
+        ids.put(startKey, 0);
+        frontier.add(0, packedHeuristic(startKey), 0);
+
+        while (!frontier.isEmpty()) {
+            //====for stats purposes===
+            incrementNodeCount();
+            updateMemory(frontier.size() + count);
+            updateFrontier(frontier.size());
+            //=========================
+
+            int id = frontier.poll();
+            long positions = keys[id] & positionMask;
+            if (positions == goalPacked) {
+                return packedPath(id, keys, g, parent, positionMask);
+            }
+            closed.set(id);
+
+            int turn = (int) (keys[id] >>> turnShift);
+            int nextTurn = (turn == numAgents - 1) ? 0 : turn + 1;
+            int x = xIn(positions, turn);
+            int y = yIn(positions, turn);
+            for (int[] action : actions) {
+                int xNew = x + action[0];
+                int yNew = y + action[1];
+                if (!maze.isLegal(xNew, yNew) || !isFreeIn(positions, turn, xNew, yNew)) {
+                    continue;
+                }
+                long nextPositions = withAgent(positions, turn, xNew, yNew);
+                long nextKey = nextPositions | ((long) nextTurn << turnShift);
+                int cost = g[id] + 1;
+
+                int next = ids.get(nextKey);
+                if (next < 0) {
+                    if (count == keys.length) {
+                        keys = Arrays.copyOf(keys, count * 2);
+                        g = Arrays.copyOf(g, count * 2);
+                        parent = Arrays.copyOf(parent, count * 2);
+                    }
+                    int h = packedHeuristic(nextPositions);
+                    if (h == NO_PATH) {
+                        continue; // some agent is cut off from its goal
+                    }
+                    next = count++;
+                    ids.put(nextKey, next);
+                    keys[next] = nextKey;
+                    g[next] = cost;
+                    parent[next] = id;
+                    frontier.add(next, cost + h, cost);
+                } else if (cost < g[next]) {
+                    g[next] = cost;
+                    parent[next] = id;
+                    if (closed.get(next)) { // only with an inconsistent heuristic
+                        closed.clear(next);
+                        frontier.add(next, cost + packedHeuristic(nextPositions), cost);
+                        incrementReopened();
+                    } else {
+                        frontier.decreaseKey(next, cost + packedHeuristic(nextPositions), cost);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // a suboptimality for conflictBasedSearch(double) on crowded mazes:
+    //  optimal CBS runs into its node limit on 40 agents in a 100x100 maze
+    //  that this solves in under a second
+    public static final double DEFAULT_CBS_SUBOPTIMALITY = 1.05;
+
+    /**
+     * Solves the problem with ConflictBasedSearch instead of the joint
+     * search: all agents move at once and the sum of their plans' lengths
+     * is the smallest possible. The path has
+     * one GeneralMazeNode per time step (turn 0, cost = time), so
+     * GeneralMazeDriver can animate it like the A* paths. nodesExplored
+     * counts the low-level expansions; maxMemory and the frontier peak are
+     * the constraint tree's open list. Returns null if there is no solution,
+     * or none within the node limit (see setCbsNodeLimit); isCbsNodeLimitReached
+     * tells the two apart.
+     */
+    public List<SearchNode> conflictBasedSearch() {
+        return conflictBasedSearch(1);
+    }
+
+    // the same, with plans at most suboptimality times the optimal sum of
+    //  costs (see ConflictBasedSearch.setSuboptimality); 1 for optimal plans
+    public List<SearchNode> conflictBasedSearch(double suboptimality) {
+        resetStats();
+        ConflictBasedSearch cbs = new ConflictBasedSearch(maze, starts_xy, goals_xy);
+        cbs.setSuboptimality(suboptimality);
+        cbs.setNodeLimit(cbsNodeLimit);
+        int[][] paths = cbs.solve();
+        cbsNodeLimitReached = cbs.isNodeLimitReached();
+        nodesExplored = cbs.getLowLevelExpanded();
+        updateMemory(cbs.getMaxOpenSize());
+        updateFrontier(cbs.getMaxOpenSize());
+        if (paths == null) {
+            return null;
+        }
+
+        int horizon = 0;
+        for (int[] path : paths) {
+            horizon = Math.max(horizon, path.length);
+        }
+        LinkedList<SearchNode> result = new LinkedList<SearchNode>();
+        int[][] positions = new int[numAgents][2];
+        for (int t = 0; t < horizon; t++) {
+            for (int i = 0; i < numAgents; i++) {
+                int cell = paths[i][Math.min(t, paths[i].length - 1)];
+                positions[i][0] = cbs.xOf(cell);
+                positions[i][1] = cbs.yOf(cell);
+            }
+            result.add(new GeneralMazeNode(positions, t, 0));
+        }
+        return result;
+    }
+
+    // constraint tree nodes conflictBasedSearch may expand before it gives
+    //  up, 0 for no limit (ConflictBasedSearch.DEFAULT_NODE_LIMIT by default)
+    public void setCbsNodeLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("node limit must not be negative: " + limit);
+        }
+        cbsNodeLimit = limit;
+    }
+
+    // did the last conflictBasedSearch return null because it hit the node
+    //  limit (rather than because there is no solution)?
+    public boolean isCbsNodeLimitReached() {
+        return cbsNodeLimitReached;
+    }
+
+    // externalBreadthFirstSearch keys: the key astarSearchPacked uses, so
+    //  only when the positions and the turn fit in one long together
+    @Override
+    public List<SearchNode> externalBreadthFirstSearch(File directory, int memoryStates) {
+        if (turnShift < 0) {
+            throw new UnsupportedOperationException(numAgents + " agents on a " + maze.width + "x" + maze.height
+                    + " maze don't pack into a long");
+        }
+        return super.externalBreadthFirstSearch(directory, memoryStates);
+    }
+
+    @Override
+    public long packState(SearchNode node) {
+        GeneralMazeNode n = (GeneralMazeNode) node;
+        return n.packed | ((long) n.turn << turnShift);
+    }
+
+    @Override
+    public SearchNode unpackState(long state, double cost) {
+        return new GeneralMazeNode(state & ((1L << turnShift) - 1), null, cost, (int) (state >>> turnShift));
+    }
+
+    private int packedHeuristic(long positions) {
+        int h = 0;
+        for (int i = 0; i < numAgents; i++) {
+            int d = agentDistance(i, xIn(positions, i), yIn(positions, i));
+            if (d == NO_PATH) {
+                return NO_PATH;
+            }
+            h += d;
+        }
+        return h;
+    }
+
+    // the GeneralMazeNodes from the start to state id, like backchain
+    private List<SearchNode> packedPath(int id, long[] keys, int[] g, int[] parent, long positionMask) {
+        LinkedList<SearchNode> path = new LinkedList<SearchNode>();
+        for (int s = id; s >= 0; s = parent[s]) {
+            path.addFirst(new GeneralMazeNode(keys[s] & positionMask, null, g[s], (int) (keys[s] >>> turnShift)));
+        }
+        return path;
+    }
+
 
     //================SimpleMazeNode class=================
     // node class used by searches.  Searches themselves are implemented
     //  in SearchProblem and InformedSearchProblem
     public class GeneralMazeNode implements SearchNode {
 
-        // location of the agents in the maze and the turn number --> [[x1,y1],...,[xi,yi],...,[xk,yk]]
-        protected int[][] state;
+        // location of the agents in the maze, packed as described above. With
+        //  numWords == 1 the state is just packed and words is null; otherwise
+        //  words holds all of it and packed is unused.
+        protected long packed;
+        protected long[] words;
 
         //whose turn is it?
         protected int turn;
@@ -54,25 +369,38 @@ public class GeneralMazeProblem extends InformedSearchProblem {
         //  and for comparing paths
         private double cost;
 
-        private int numAgents;
-
         public GeneralMazeNode(int[][] s, double c, int t) {
-            state = s; //deep copy (java passes primitive types by value)
+            long[] w = pack(s);
+            if (numWords == 1) {
+                packed = w[0];
+            } else {
+                words = w;
+            }
+            turn = t;
+            cost = c;
+        }
+
+        private GeneralMazeNode(long packed, long[] words, double c, int t) {
+            this.packed = packed;
+            this.words = words;
             turn = t;
             cost = c;
-            numAgents = s.length;
         }
 
         public int getNumAgents(){
-            return this.numAgents;
+            return numAgents;
+        }
+
+        private long wordOf(int i) {
+            return (words == null) ? packed : words[i / agentsPerWord];
         }
 
         public int getXof(int i) {
-            return state[i][0];
+            return xIn(wordOf(i), i);
         }
 
         public int getYof(int i) {
-            return state[i][1];
+            return yIn(wordOf(i), i);
         }
 
         /**
@@ -82,32 +410,28 @@ public class GeneralMazeProblem extends InformedSearchProblem {
         public ArrayList<SearchNode> getSuccessors() {
 
             ArrayList<SearchNode> successors = new ArrayList<SearchNode>();
+            int x = getXof(turn);
+            int y = getYof(turn);
+            int newTurn = turn + 1; //its next agents turn, unless...
+            if(turn == numAgents-1){ // all agents have moved so back to the first one! (back to back!)
+                newTurn = 0;
+            }
 
             for (int[] action: actions) {
-//                System.out.println(state.length);
-                int xNew = state[turn][0] + action[0];
-                int yNew = state[turn][1] + action[1];
-
-//                System.out.println("testing successor " + xNew + " " + yNew);
+                int xNew = x + action[0];
+                int yNew = y + action[1];
 
                 if(maze.isLegal(xNew, yNew) && isFree(xNew, yNew)) {
-//                    System.out.println("legal successor found " + " " + xNew + " " + yNew);
-
-                    // copy the current state, change it with the new x and y locations
-                    // update the turn and cost
-                    // make a new GeneralMazeNode and add it to the successors List
-                    int[][] newState = new int[state.length][];
-                    for(int i=0; i<state.length; i++){
-                        newState[i] = Arrays.copyOf(state[i], state[i].length);
+                    // only the word holding the moving agent changes
+                    SearchNode succ;
+                    if (words == null) {
+                        succ = new GeneralMazeNode(withAgent(packed, turn, xNew, yNew), null, getCost() + 1.0, newTurn);
+                    } else {
+                        long[] newWords = Arrays.copyOf(words, words.length);
+                        int w = turn / agentsPerWord;
+                        newWords[w] = withAgent(newWords[w], turn, xNew, yNew);
+                        succ = new GeneralMazeNode(0, newWords, getCost() + 1.0, newTurn);
                     }
-                    newState[turn][0] = xNew;
-                    newState[turn][1] = yNew;
-                    int newTurn = turn + 1; //its next agents turn, unless...
-                    if(turn == state.length-1){ // all agents have moved so back to the first one! (back to back!)
-                        newTurn = 0;
-                    }
-
-                    SearchNode succ = new GeneralMazeNode(newState, getCost() + 1.0, newTurn);
                     successors.add(succ);
                 }
             }
@@ -121,13 +445,9 @@ public class GeneralMazeProblem extends InformedSearchProblem {
          * @return true if the spot is free, false is the spot is taken by another agent
          */
          private boolean isFree(int x, int y){
-             for(int[] location : state){ // for every [x_i,y_i] in the states check if x_i == x and y_i ==y
-                 if(location[0] == x && location[1] == y ){ //if there is an agent already there
-                     if((state[turn][0] == x) && (state[turn][1] == y)) {// if the agent isn't it self (used in case this one is just chilling there and passing its turn)
-                         continue;
-                     }else{
-                        return false;
-                     }
+             for(int i=0; i<numAgents; i++){ // the moving agent may stay where it is
+                 if(i != turn && getXof(i) == x && getYof(i) == y){
+                     return false;
                  }
              }
              return true;
@@ -135,52 +455,46 @@ public class GeneralMazeProblem extends InformedSearchProblem {
 
         @Override
         public boolean goalTest(){
-            boolean result = true;
-            for (int i=0; i<state.length; i++){
-                if(state[i][0] == goals_xy[i][0] && state[i][1] == goals_xy[i][1]){
-                    continue;
-                }else{
-                    result = false;
-                }
+            if (words == null) {
+                return packed == goalPacked;
             }
-            return result;
+            return Arrays.equals(words, goalWords);
         }
 
 
         // an equality test is required so that visited sets in searches
-        // can check for containment of states
+        // can check for containment of states. The turn is part of the
+        // state: the same positions with a different agent to move have
+        // different successors.
         @Override
         public boolean equals(Object other) {
-            for(int i=0; i<state.length; i++){
-                if(!Arrays.equals(state[i], ((GeneralMazeNode)other).state[i])){
-                    return false;
-                }
-            }
-            return true;
+            GeneralMazeNode o = (GeneralMazeNode) other;
+            return turn == o.turn && packed == o.packed && Arrays.equals(words, o.words);
         }
 
         /**
-         * Make a hash from the k states plus the turn
-         * @return a unique integer representation of the states for hash purposes
+         * Mixes the packed positions and the turn, so no two agents' digits
+         * can run together the way the old decimal string did ("1,23" vs "12,3").
          */
         @Override
         public int hashCode() {
-            StringBuilder hashStr = new StringBuilder(); //make a stringBuilder because it is faster than the '+'
-            for (int i=0; i<state.length; i++){//for all the [x, y]  in state
-                hashStr.append(Integer.toString(state[i][0]));
-                hashStr.append(Integer.toString(state[i][1]));
+            // the turn goes in after a first mix: xor-ed into packed directly
+            //  it cancelled out against the low bit of agent 0's x
+            long h = LongIndexMap.mix(LongIndexMap.mix(packed) + turn);
+            if (words != null) {
+                for (long w : words) {
+                    h = LongIndexMap.mix(h ^ w);
+                }
             }
-            hashStr.append(Integer.toString(turn)); //if state->{{1,2},{3,4}} and turn->1, hashStr.toString()->"12341"
-
-            return hashStr.toString().hashCode(); // makes a hashcode from the string
+            return (int) (h ^ (h >>> 32));
         }
 
         @Override
         public String toString() {
             StringBuilder strBuff = new StringBuilder();
             strBuff.append("{turn:").append(Integer.toString(turn)).append(" | cost:").append(Double.toString(cost)).append(" | [ ");
-            for(int[] s : state){
-                strBuff.append("[").append(Integer.toString(s[0])).append(",").append(Integer.toString(s[1])).append("] ");
+            for(int i=0; i<numAgents; i++){
+                strBuff.append("[").append(Integer.toString(getXof(i))).append(",").append(Integer.toString(getYof(i))).append("] ");
             }
             strBuff.append(" ]}");
 
@@ -195,30 +509,21 @@ public class GeneralMazeProblem extends InformedSearchProblem {
 
         @Override
         public double heuristic() {
-            // sum of manhattan distances metric for general maze with multiple agent:
+            // sum of manhattan (or true) distances metric for general maze with multiple agent:
             double result = 0;
-            for (int i=0; i<state.length; i++){
-                result += getManhattan(state[i], goals_xy[i]);
+            for (int i=0; i<numAgents; i++){
+                int d = agentDistance(i, getXof(i), getYof(i));
+                if (d == NO_PATH) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                result += d;
             }
             return result;
         }
 
-        /**
-         * Helper Method to be used in heuristic()
-         * @param start : the int[2] start location
-         * @param end : he int[2] end location
-         * @return the mahattan distance between int[2] start and int[2] end
-         */
-        private double getManhattan(int[] start, int[] end){
-            double dx = end[0] - start[0];
-            double dy = end[1] - start[1];
-            return Math.abs(dx) + Math.abs(dy);
-
-        }
-
         @Override
         public int compareTo(SearchNode o) {
-            return (int) Math.signum(priority() - o.priority());
+            return Double.compare(priority(), o.priority());
         }
 
         @Override
@@ -230,5 +535,3 @@ public class GeneralMazeProblem extends InformedSearchProblem {
     //===============End of SimpleMazeNode class==================
 
 }
-
-
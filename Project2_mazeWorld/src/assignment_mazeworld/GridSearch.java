@@ -0,0 +1,544 @@
+package assignment_mazeworld;
+
+/**
+ * Description: bfs and A* for a single agent on a Maze, without node objects.
+ * A cell (x, y) is the int y * width + x; costs, parents and the closed set
+ * live in flat arrays that are allocated once per maze and reused by every
+ * search, so a search allocates nothing per node (only the returned path).
+ * SimpleMazeProblem wraps the results back into SimpleMazeNodes (see
+ * gridBreadthFirstSearch and gridAstarSearch there).
+ */
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class GridSearch {
+
+	// the moves in the same order as SimpleMazeProblem's actions (N, E, S, W)
+	private static final int[][] ACTIONS = {Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST};
+	private static final int NUM_ACTIONS = ACTIONS.length;
+
+	private final int width;
+	private final int height;
+	private final int numCells;
+
+	// floor cells of the maze, read once in the constructor
+	private final BitSet open;
+
+	// cell offset of each action: NORTH is +width since y grows upwards
+	private final int[] delta;
+
+	//====per search scratch space, reused between searches====
+	// cost from the start; only meaningful for cells in reached
+	private final int[] g;
+	// index of the action that first reached (or last improved) each cell;
+	//  the parent of cell c is c - delta[parentAction[c]]
+	private final byte[] parentAction;
+	private final BitSet reached;
+	private final BitSet closed;
+	// bfs queue; every cell enters at most once, so it never wraps
+	private int[] queue;
+	private IndexedIntHeap heap;
+	// jump point search: the jump point each jump point was reached from
+	private int[] parentCell;
+
+	// JPS+ tables, built on the first jumpPointSearchPlus: jumps[a][c] > 0 is
+	//  the number of steps from c in direction a to the next jump point;
+	//  jumps[a][c] <= 0 means there is none before the wall, which is
+	//  -jumps[a][c] steps away. Goal cells aren't in here: those are checked
+	//  against the distances during the search.
+	private int[][] jumps;
+
+	// same meaning as in SearchProblem
+	private int nodesExplored;
+	private int maxMemory;
+	// adds, polls and decrease-keys on the A* heap
+	private int heapOperations;
+
+	public GridSearch(Maze maze) {
+		width = maze.width;
+		height = maze.height;
+		numCells = width * height;
+
+		open = new BitSet(numCells);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (maze.isLegal(x, y)) {
+					open.set(cell(x, y));
+				}
+			}
+		}
+
+		delta = new int[NUM_ACTIONS];
+		for (int a = 0; a < NUM_ACTIONS; a++) {
+			delta[a] = ACTIONS[a][1] * width + ACTIONS[a][0];
+		}
+
+		g = new int[numCells];
+		parentAction = new byte[numCells];
+		reached = new BitSet(numCells);
+		closed = new BitSet(numCells);
+	}
+
+	public int cell(int x, int y) {
+		return y * width + x;
+	}
+
+	public int xOf(int cell) {
+		return cell % width;
+	}
+
+	public int yOf(int cell) {
+		return cell / width;
+	}
+
+	public boolean isOpen(int cell) {
+		return open.get(cell);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getNodesExplored() {
+		return nodesExplored;
+	}
+
+	public int getMaxMemory() {
+		return maxMemory;
+	}
+
+	public int getHeapOperations() {
+		return heapOperations;
+	}
+
+	// the cell reached by taking action a from cell, or -1 for a wall or the edge
+	private int neighbor(int cell, int a) {
+		int x = xOf(cell) + ACTIONS[a][0];
+		int y = yOf(cell) + ACTIONS[a][1];
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return -1;
+		}
+		int next = cell + delta[a];
+		return open.get(next) ? next : -1;
+	}
+
+	// returns the cells from start to goal, or null if the goal can't be reached
+	public int[] breadthFirstSearch(int start, int goal) {
+		resetSearch();
+		if (!open.get(start)) {
+			return null;
+		}
+		if (queue == null) {
+			queue = new int[numCells];
+		}
+
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+		reached.set(start);
+		g[start] = 0;
+
+		while (head < tail) {
+			nodesExplored++;
+			updateMemory(tail); // everything queued so far is still in reached
+
+			int current = queue[head++];
+			if (current == goal) {
+				return backchain(goal);
+			}
+			for (int a = 0; a < NUM_ACTIONS; a++) {
+				int next = neighbor(current, a);
+				if (next >= 0 && !reached.get(next)) {
+					reached.set(next);
+					g[next] = g[current] + 1;
+					parentAction[next] = (byte) a;
+					queue[tail++] = next;
+				}
+			}
+		}
+		return null;
+	}
+
+	// A* with the manhattan distance; every move costs 1. Each cell is in the
+	//  heap at most once: a cheaper path to a queued cell lowers its key in place.
+	public int[] astarSearch(int start, int goal) {
+		resetSearch();
+		if (!open.get(start)) {
+			return null;
+		}
+		if (heap == null) {
+			heap = new IndexedIntHeap(numCells);
+		}
+		heap.clear();
+
+		int gx = xOf(goal);
+		int gy = yOf(goal);
+		int reachedCount = 1;
+		reached.set(start);
+		g[start] = 0;
+		heap.add(start, manhattan(start, gx, gy), 0);
+		heapOperations++;
+
+		while (!heap.isEmpty()) {
+			nodesExplored++;
+			updateMemory(heap.size() + reachedCount);
+
+			int current = heap.poll();
+			heapOperations++;
+			if (current == goal) {
+				return backchain(goal);
+			}
+			closed.set(current);
+
+			for (int a = 0; a < NUM_ACTIONS; a++) {
+				int next = neighbor(current, a);
+				if (next < 0 || closed.get(next)) {
+					continue; // manhattan is consistent, so closed cells are final
+				}
+				int cost = g[current] + 1;
+				if (!reached.get(next)) {
+					reached.set(next);
+					reachedCount++;
+					g[next] = cost;
+					parentAction[next] = (byte) a;
+					heap.add(next, cost + manhattan(next, gx, gy), cost);
+					heapOperations++;
+				} else if (cost < g[next]) {
+					g[next] = cost;
+					parentAction[next] = (byte) a;
+					heap.decreaseKey(next, cost + manhattan(next, gx, gy), cost);
+					heapOperations++;
+				}
+			}
+		}
+		return null;
+	}
+
+	//====jump point search====
+	// A* over jump points only, for 4-connected grids with unit costs. Moving
+	//  in a straight line, a cell only needs expanding if something opens up
+	//  there that the cell behind it couldn't reach directly:
+	//  - moving east or west, a cell stops the run when a north or south
+	//    neighbor is open but the same neighbor of the previous cell is not
+	//    (a forced neighbor);
+	//  - moving north or south, the same with east and west, and also when an
+	//    east or west run from the cell would stop somewhere (otherwise that
+	//    sideways turn would be lost);
+	//  - the goal, and a cell in the goal's row that can see the goal, stop
+	//    every run.
+	//  Everything between two jump points is a straight line, so a jump is a
+	//  single A* edge that costs its length. An expanded jump point only tries
+	//  the directions other than straight back. Returns the full cell path,
+	//  the same as astarSearch.
+	public int[] jumpPointSearch(int start, int goal) {
+		return jumpSearch(start, goal, false);
+	}
+
+	// jumpPointSearch with the runs looked up in precomputed tables (JPS+)
+	//  instead of walked cell by cell. The tables take four ints per cell and
+	//  are built once, on the first call.
+	public int[] jumpPointSearchPlus(int start, int goal) {
+		if (jumps == null) {
+			buildJumpTables();
+		}
+		return jumpSearch(start, goal, true);
+	}
+
+	private int[] jumpSearch(int start, int goal, boolean useTables) {
+		resetSearch();
+		if (!open.get(start)) {
+			return null;
+		}
+		if (heap == null) {
+			heap = new IndexedIntHeap(numCells);
+		}
+		if (parentCell == null) {
+			parentCell = new int[numCells];
+		}
+		heap.clear();
+
+		int gx = xOf(goal);
+		int gy = yOf(goal);
+		int reachedCount = 1;
+		reached.set(start);
+		g[start] = 0;
+		parentCell[start] = start;
+		heap.add(start, manhattan(start, gx, gy), 0);
+		heapOperations++;
+
+		while (!heap.isEmpty()) {
+			nodesExplored++;
+			updateMemory(heap.size() + reachedCount);
+
+			int current = heap.poll();
+			heapOperations++;
+			if (current == goal) {
+				return backchainJumps(start, goal);
+			}
+			closed.set(current);
+
+			for (int a = 0; a < NUM_ACTIONS; a++) {
+				if (current != start && a == (parentAction[current] + 2) % NUM_ACTIONS) {
+					continue; // straight back the way we came
+				}
+				int next = useTables ? jumpWithTable(current, a, goal) : jump(current, a, goal);
+				if (next < 0 || closed.get(next)) {
+					continue;
+				}
+				int cost = g[current] + Math.abs(xOf(next) - xOf(current)) + Math.abs(yOf(next) - yOf(current));
+				if (!reached.get(next)) {
+					reached.set(next);
+					reachedCount++;
+					g[next] = cost;
+					parentAction[next] = (byte) a;
+					parentCell[next] = current;
+					heap.add(next, cost + manhattan(next, gx, gy), cost);
+					heapOperations++;
+				} else if (cost < g[next]) {
+					g[next] = cost;
+					parentAction[next] = (byte) a;
+					parentCell[next] = current;
+					heap.decreaseKey(next, cost + manhattan(next, gx, gy), cost);
+					heapOperations++;
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean isOpen(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height && open.get(cell(x, y));
+	}
+
+	private static boolean isVertical(int a) {
+		return ACTIONS[a][0] == 0;
+	}
+
+	// is one of the cells beside (x, y) open while the one beside the cell we
+	//  came from (moving in direction a) is not?
+	private boolean hasForcedNeighbor(int x, int y, int a) {
+		int dx = ACTIONS[a][0];
+		int dy = ACTIONS[a][1];
+		// the two perpendicular directions are (dy, dx) and (-dy, -dx)
+		return (isOpen(x + dy, y + dx) && !isOpen(x - dx + dy, y - dy + dx))
+				|| (isOpen(x - dy, y - dx) && !isOpen(x - dx - dy, y - dy - dx));
+	}
+
+	// walks from cell in direction a to the next jump point (see above), or -1
+	//  if the run hits a wall first
+	private int jump(int cell, int a, int goal) {
+		int x = xOf(cell);
+		int y = yOf(cell);
+		while (true) {
+			x += ACTIONS[a][0];
+			y += ACTIONS[a][1];
+			if (!isOpen(x, y)) {
+				return -1;
+			}
+			int next = cell(x, y);
+			if (next == goal || hasForcedNeighbor(x, y, a)) {
+				return next;
+			}
+			// east (1) and west (3) runs never look sideways, so this doesn't recurse further
+			if (isVertical(a) && (jump(next, 1, goal) >= 0 || jump(next, 3, goal) >= 0)) {
+				return next;
+			}
+		}
+	}
+
+	// jump(), with the goal-independent part read from the JPS+ tables
+	private int jumpWithTable(int cell, int a, int goal) {
+		int steps = jumps[a][cell];
+		int reach = Math.abs(steps); // cells we can go before the jump point or the wall
+		int x = xOf(cell);
+		int y = yOf(cell);
+		int gx = xOf(goal);
+		int gy = yOf(goal);
+		int dx = ACTIONS[a][0];
+		int dy = ACTIONS[a][1];
+		// how far along the run the goal's column (or row) is
+		int k = isVertical(a) ? (gy - y) * dy : (gx - x) * dx;
+		if (k >= 1 && k <= reach) {
+			if (!isVertical(a)) {
+				if (gy == y) {
+					return goal;
+				}
+			} else {
+				// a cell in the goal's row stops the run if it can see the goal
+				int m = cell(x, gy);
+				int toGoal = Math.abs(gx - x);
+				int side = (gx > x) ? 1 : 3;
+				if (m == goal || ((k < reach || steps <= 0) && toGoal <= -jumps[side][m])) {
+					return m;
+				}
+			}
+		}
+		return (steps > 0) ? cell + steps * delta[a] : -1;
+	}
+
+	// one sweep per direction, against the direction of travel, so each cell
+	//  reads the entry of the cell after it. The east and west tables go first:
+	//  the north and south ones stop wherever a sideways run would.
+	private void buildJumpTables() {
+		jumps = new int[NUM_ACTIONS][numCells];
+		for (int a : new int[]{1, 3, 0, 2}) {
+			int dx = ACTIONS[a][0];
+			int dy = ACTIONS[a][1];
+			int[] table = jumps[a];
+			int yFrom = (dy > 0) ? height - 1 : 0;
+			int xFrom = (dx > 0) ? width - 1 : 0;
+			for (int i = 0; i < numCells; i++) {
+				// visit cells so that the next cell in direction a comes first
+				int x = (dx > 0) ? xFrom - i % width : i % width;
+				int y = (dy > 0) ? yFrom - i / width : i / width;
+				int c = cell(x, y);
+				if (!open.get(c)) {
+					continue;
+				}
+				int nx = x + dx;
+				int ny = y + dy;
+				if (!isOpen(nx, ny)) {
+					table[c] = 0;
+					continue;
+				}
+				int next = cell(nx, ny);
+				boolean stop = hasForcedNeighbor(nx, ny, a)
+						|| (isVertical(a) && (jumps[1][next] > 0 || jumps[3][next] > 0));
+				if (stop) {
+					table[c] = 1;
+				} else {
+					table[c] = (table[next] > 0) ? table[next] + 1 : table[next] - 1;
+				}
+			}
+		}
+	}
+
+	// jump point parents, filled in with the straight runs between them
+	private int[] backchainJumps(int start, int goal) {
+		int[] path = new int[g[goal] + 1];
+		int i = path.length - 1;
+		int current = goal;
+		while (current != start) {
+			int back = delta[parentAction[current]];
+			int from = parentCell[current];
+			for (int c = current; c != from; c -= back) {
+				path[i--] = c;
+			}
+			current = from;
+		}
+		path[0] = start;
+		return path;
+	}
+
+	private int manhattan(int cell, int gx, int gy) {
+		return Math.abs(xOf(cell) - gx) + Math.abs(yOf(cell) - gy);
+	}
+
+	// walks the parent actions back from goal; g[goal] is the number of moves
+	private int[] backchain(int goal) {
+		int[] path = new int[g[goal] + 1];
+		int current = goal;
+		for (int i = path.length - 1; i > 0; i--) {
+			path[i] = current;
+			current -= delta[parentAction[current]];
+		}
+		path[0] = current;
+		return path;
+	}
+
+	private void resetSearch() {
+		nodesExplored = 0;
+		maxMemory = 0;
+		heapOperations = 0;
+		reached.clear();
+		closed.clear();
+	}
+
+	private void updateMemory(int currentMemory) {
+		maxMemory = Math.max(currentMemory, maxMemory);
+	}
+
+	public void printStats() {
+		System.out.println("  Nodes explored during search:  " + nodesExplored);
+		System.out.println("  Maximum space usage during search " + maxMemory);
+		if (heapOperations > 0) {
+			System.out.println("  Heap operations " + heapOperations);
+		}
+	}
+
+	// times bfs and A* corner to corner on a big random maze (or the maze file
+	//  given as the first argument), for comparison with the object searches.
+	//  usage: GridSearch [mazeFile | size] [wallPercent]
+	public static void main(String args[]) {
+		Maze maze;
+		if (args.length > 0 && !args[0].matches("\\d+")) {
+			maze = Maze.readFromFile(args[0]);
+		} else {
+			int size = (args.length > 0) ? Integer.parseInt(args[0]) : 4096;
+			int wallPercent = (args.length > 1) ? Integer.parseInt(args[1]) : 25;
+			maze = randomMaze(size, wallPercent, 76);
+		}
+
+		GridSearch grid = new GridSearch(maze);
+		int start = grid.cell(0, 0);
+		int goal = grid.cell(maze.width - 1, maze.height - 1);
+
+		for (int round = 0; round < 3; round++) { // the first round warms up the JIT
+			long t0 = System.nanoTime();
+			int[] bfsPath = grid.breadthFirstSearch(start, goal);
+			long t1 = System.nanoTime();
+			System.out.println("grid bfs: " + ((bfsPath == null) ? -1 : bfsPath.length) + " cells, "
+					+ String.format("%.1f", (t1 - t0) / 1e6) + " ms");
+			grid.printStats();
+
+			t0 = System.nanoTime();
+			int[] astarPath = grid.astarSearch(start, goal);
+			t1 = System.nanoTime();
+			System.out.println("grid A*: " + ((astarPath == null) ? -1 : astarPath.length) + " cells, "
+					+ String.format("%.1f", (t1 - t0) / 1e6) + " ms");
+			grid.printStats();
+
+			t0 = System.nanoTime();
+			int[] jpsPath = grid.jumpPointSearch(start, goal);
+			t1 = System.nanoTime();
+			System.out.println("grid JPS: " + ((jpsPath == null) ? -1 : jpsPath.length) + " cells, "
+					+ String.format("%.1f", (t1 - t0) / 1e6) + " ms");
+			grid.printStats();
+
+			t0 = System.nanoTime();
+			int[] jpsPlusPath = grid.jumpPointSearchPlus(start, goal); // the first round includes the tables
+			t1 = System.nanoTime();
+			System.out.println("grid JPS+: " + ((jpsPlusPath == null) ? -1 : jpsPlusPath.length) + " cells, "
+					+ String.format("%.1f", (t1 - t0) / 1e6) + " ms");
+			grid.printStats();
+		}
+	}
+
+	// walls dropped at random, wallPercent percent of the cells. The start and
+	//  goal corners (and their neighbors) are always floor. MazeGenerator has
+	//  more kinds of maze; this one is kept so the benchmarks stay comparable.
+	static Maze randomMaze(int size, int wallPercent, long seed) {
+		Random random = new Random(seed);
+		Maze maze = new Maze(size, size);
+		// rows top first, as they used to be written to the maze file
+		for (int y = size - 1; y >= 0; y--) {
+			for (int x = 0; x < size; x++) {
+				maze.setFloor(x, y, random.nextInt(100) >= wallPercent);
+			}
+			if (y >= size - 2) {
+				maze.setFloor(size - 1, y, true);
+				maze.setFloor(size - 2, y, true);
+			}
+			if (y <= 1) {
+				maze.setFloor(0, y, true);
+				maze.setFloor(1, y, true);
+			}
+		}
+		return maze;
+	}
+}
@@ -0,0 +1,301 @@
+package assignment_mazeworld;
+
+/**
+ * Description: hash-distributed A* (HDA*, Kishimoto, Fukunaga and Botea 2009)
+ * over any SearchNode, for InformedSearchProblem.parallelAstarSearch. Every
+ * state has an owner thread, picked by its hash. Each worker keeps its own
+ * frontier and visited tables for the states it owns, so nothing in them is
+ * shared or locked. A successor owned by another worker is sent to that
+ * worker's mailbox, a lock-free ConcurrentLinkedQueue.
+ * The workers don't expand in global f order, so a goal expanded first
+ * isn't necessarily the cheapest. It becomes the incumbent, and the search
+ * goes on until no worker has a node with f below the incumbent's cost and
+ * no message is still on its way. With an admissible heuristic the
+ * incumbent is then optimal.
+ */
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import assignment_mazeworld.SearchProblem.SearchNode;
+
+class HashDistributedAstar {
+
+	// longest an idle worker sleeps without being woken; a wake-up is never
+	//  missed (see Worker.run), this only caps the damage if one were
+	private static final long IDLE_PARK_NANOS = 10000000;
+
+	private final SearchNode start;
+	private final Worker[] workers;
+
+	// messages sent but not taken in yet, plus the workers that have nodes
+	//  worth expanding. It only goes up while it is above 0 (a message is
+	//  sent by a busy worker, and an idle worker only wakes up for a message),
+	//  so once it is 0 it stays 0 and the search is over.
+	private final AtomicLong work = new AtomicLong();
+
+	// the cheapest goal expanded so far; the cost is read without the lock
+	private volatile double incumbentCost = Double.POSITIVE_INFINITY;
+	private SearchNode incumbent;
+
+	// the first exception thrown by a worker; stops the others
+	private volatile Throwable failure;
+
+	public HashDistributedAstar(SearchNode start, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("need at least one thread: " + threads);
+		}
+		this.start = start;
+		workers = new Worker[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Worker();
+		}
+	}
+
+	// the path to an optimal goal, or null if there is none. Runs once.
+	public List<SearchNode> search() {
+		work.set(1);
+		workers[owner(start)].mailbox.add(new Message(start, null));
+
+		Thread[] threads = new Thread[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			threads[i] = new Thread(workers[i], "hda-" + i);
+			workers[i].thread = threads[i];
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		try {
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			failure = e; // the workers see it and stop
+			wakeAll();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while searching", e);
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+
+		if (incumbent == null) {
+			return null;
+		}
+		// like backchain, but the parents are spread over the workers; the
+		//  entries hold the cheapest node found for each state
+		LinkedList<SearchNode> path = new LinkedList<SearchNode>();
+		for (SearchNode state = incumbent; state != null; ) {
+			Worker worker = workers[owner(state)];
+			path.addFirst(worker.entries.get(state).getItem());
+			state = worker.visited.get(state);
+		}
+		return path;
+	}
+
+	// the worker a state belongs to. GeneralMazeNode and BlindMazeNode mix
+	//  their hashes already, but SimpleMazeNode's is a plain sum of the
+	//  coordinates, so mix again
+	private int owner(SearchNode state) {
+		return (int) ((LongIndexMap.mix(state.hashCode()) >>> 1) % workers.length);
+	}
+
+	private void wakeAll() {
+		for (Worker worker : workers) {
+			LockSupport.unpark(worker.thread);
+		}
+	}
+
+	private synchronized void offerGoal(SearchNode goal) {
+		if (goal.getCost() < incumbentCost) {
+			incumbent = goal;
+			incumbentCost = goal.getCost();
+		}
+	}
+
+	//====stats, summed over the workers====
+	public int getNodesExplored() {
+		int sum = 0;
+		for (Worker worker : workers) {
+			sum += worker.expanded;
+		}
+		return sum;
+	}
+
+	// the workers peak at different times, so this overestimates a little
+	public int getMaxMemory() {
+		int sum = 0;
+		for (Worker worker : workers) {
+			sum += worker.peakMemory;
+		}
+		return sum;
+	}
+
+	public int getFrontierPeak() {
+		int sum = 0;
+		for (Worker worker : workers) {
+			sum += worker.frontier.getPeakSize();
+		}
+		return sum;
+	}
+
+	// states expanded again because a cheaper path to them arrived later:
+	//  the price of not expanding in global f order
+	public int getReopenedNodes() {
+		int sum = 0;
+		for (Worker worker : workers) {
+			sum += worker.reopened;
+		}
+		return sum;
+	}
+
+	public long getMessagesSent() {
+		long sum = 0;
+		for (Worker worker : workers) {
+			sum += worker.sent;
+		}
+		return sum;
+	}
+
+	// nodes expanded by each worker, to see how even the hash split is
+	public int[] getExpansionsPerWorker() {
+		int[] expansions = new int[workers.length];
+		for (int i = 0; i < workers.length; i++) {
+			expansions[i] = workers[i].expanded;
+		}
+		return expansions;
+	}
+
+
+	//================Message class=================
+	// a successor on its way to its owner
+	private static final class Message {
+		final SearchNode node;
+		final SearchNode parent;
+
+		Message(SearchNode node, SearchNode parent) {
+			this.node = node;
+			this.parent = parent;
+		}
+	}
+
+	//================Worker class=================
+	// A* over the states one owner hashes to; the tables are only touched by
+	//  the worker's own thread until search() has joined them all
+	private final class Worker implements Runnable {
+		final ConcurrentLinkedQueue<Message> mailbox = new ConcurrentLinkedQueue<Message>();
+		final IndexedHeap<SearchNode> frontier = new IndexedHeap<SearchNode>();
+		final HashMap<SearchNode, SearchNode> visited = new HashMap<SearchNode, SearchNode>();
+		final HashMap<SearchNode, IndexedHeap.Entry<SearchNode>> entries =
+				new HashMap<SearchNode, IndexedHeap.Entry<SearchNode>>();
+
+		Thread thread;
+		// set while the worker is parked or about to be, so a sender knows to
+		//  wake it
+		volatile boolean waiting;
+
+		int expanded;
+		int peakMemory;
+		int reopened;
+		long sent;
+
+		public void run() {
+			try {
+				boolean busy = false;
+				while (failure == null) {
+					Message message;
+					while ((message = mailbox.poll()) != null) {
+						if (!busy) { // counted before the message is, so work can't touch 0
+							work.incrementAndGet();
+							busy = true;
+						}
+						receive(message.node, message.parent);
+						work.decrementAndGet();
+					}
+
+					IndexedHeap.Entry<SearchNode> top = frontier.peek();
+					if (top != null && top.getPriority() < incumbentCost) {
+						expand(frontier.poll().getItem());
+						continue;
+					}
+					// nothing here can beat the incumbent any more; sleep until a
+					//  message comes, or until everyone else runs out too. The
+					//  worker that takes work to 0 wakes all the others.
+					if (busy) {
+						busy = false;
+						if (work.decrementAndGet() == 0) {
+							wakeAll();
+							return;
+						}
+					}
+					if (work.get() == 0) {
+						return;
+					}
+					// a sender checks waiting after adding its message, and the
+					//  mailbox is checked after waiting is set, so one of the two
+					//  sees the other
+					waiting = true;
+					if (mailbox.isEmpty() && work.get() != 0 && failure == null) {
+						LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+					}
+					waiting = false;
+				}
+			} catch (Throwable t) {
+				failure = t;
+				wakeAll();
+			}
+		}
+
+		private void expand(SearchNode currentNode) {
+			//====for stats purposes===
+			expanded++;
+			peakMemory = Math.max(peakMemory, frontier.size() + visited.size() + entries.size());
+			//=========================
+
+			if (currentNode.goalTest()) {
+				offerGoal(currentNode);
+				return;
+			}
+			for (SearchNode child : currentNode.getSuccessors()) {
+				Worker owner = workers[owner(child)];
+				if (owner == this) {
+					receive(child, currentNode);
+				} else {
+					work.incrementAndGet(); // before it can be taken in
+					owner.mailbox.add(new Message(child, currentNode));
+					sent++;
+					if (owner.waiting) {
+						LockSupport.unpark(owner.thread);
+					}
+				}
+			}
+		}
+
+		// the successor handling of astarSearch
+		private void receive(SearchNode child, SearchNode parent) {
+			if (child.priority() >= incumbentCost) {
+				return; // can't lead to a cheaper goal
+			}
+			IndexedHeap.Entry<SearchNode> entry = entries.get(child);
+			if (entry == null) {
+				visited.put(child, parent);
+				entries.put(child, frontier.add(child, child.priority(), child.getCost()));
+			} else if (entry.getItem().getCost() > child.getCost()) {
+				visited.put(child, parent);
+				entry.setItem(child);
+				if (entry.isQueued()) {
+					frontier.decreaseKey(entry, child.priority(), child.getCost());
+				} else {
+					frontier.add(entry, child.priority(), child.getCost());
+					reopened++;
+				}
+			}
+		}
+	}
+}
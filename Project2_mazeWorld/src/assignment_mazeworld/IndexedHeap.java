@@ -0,0 +1,191 @@
+package assignment_mazeworld;
+
+/**
+ * Description: d-ary min-heap with decrease-key, used as the frontier of the
+ * informed searches in InformedSearchProblem. add() hands back an Entry that
+ * remembers its slot in the heap, so a queued node can have its priority
+ * lowered in place instead of being pushed a second time (which is what
+ * java.util.PriorityQueue forces on us). Ties on priority go to the entry
+ * with the larger tie value (the searches pass the path cost, which favours
+ * nodes closer to the goal).
+ */
+
+import java.util.Arrays;
+
+public class IndexedHeap<T> {
+
+	//================Entry class=================
+	public static final class Entry<T> {
+		private T item;
+		private double priority;
+		private double tie;
+		// slot in the heap array, -1 once polled
+		private int index = -1;
+
+		private Entry(T item) {
+			this.item = item;
+		}
+
+		public T getItem() {
+			return item;
+		}
+
+		// the searches swap in the cheaper node when they find a better path
+		public void setItem(T item) {
+			this.item = item;
+		}
+
+		public double getPriority() {
+			return priority;
+		}
+
+		public boolean isQueued() {
+			return index >= 0;
+		}
+	}
+	//============================================
+
+	// children of slot i are d * i + 1 ... d * i + d
+	private final int d;
+	private Entry<T>[] heap;
+	private int size;
+	// largest size the heap reached since it was created
+	private int peakSize;
+
+	public IndexedHeap() {
+		this(4);
+	}
+
+	@SuppressWarnings("unchecked")
+	public IndexedHeap(int d) {
+		if (d < 2) {
+			throw new IllegalArgumentException("heap arity must be at least 2: " + d);
+		}
+		this.d = d;
+		heap = (Entry<T>[]) new Entry<?>[64];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int getPeakSize() {
+		return peakSize;
+	}
+
+	public Entry<T> add(T item, double priority, double tie) {
+		Entry<T> entry = new Entry<T>(item);
+		add(entry, priority, tie);
+		return entry;
+	}
+
+	// puts a polled entry back in (a node reopened by A*)
+	public void add(Entry<T> entry, double priority, double tie) {
+		if (entry.isQueued()) {
+			throw new IllegalStateException("entry is already in the heap");
+		}
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		entry.priority = priority;
+		entry.tie = tie;
+		entry.index = size;
+		heap[size++] = entry;
+		peakSize = Math.max(peakSize, size);
+		siftUp(entry.index);
+	}
+
+	public Entry<T> peek() {
+		return heap[0];
+	}
+
+	public Entry<T> poll() {
+		Entry<T> top = heap[0];
+		remove(top);
+		return top;
+	}
+
+	// takes a queued entry out of the heap, wherever it is
+	public void remove(Entry<T> entry) {
+		if (!entry.isQueued()) {
+			throw new IllegalStateException("entry is not in the heap");
+		}
+		int i = entry.index;
+		size--;
+		if (i < size) {
+			// the last entry fills the hole, then moves whichever way it has to
+			Entry<T> last = heap[size];
+			heap[i] = last;
+			last.index = i;
+			siftDown(i);
+			siftUp(last.index);
+		}
+		heap[size] = null;
+		entry.index = -1;
+	}
+
+	// lowers the priority of a queued entry; a priority that is not lower is ignored
+	public void decreaseKey(Entry<T> entry, double priority, double tie) {
+		if (!entry.isQueued()) {
+			throw new IllegalStateException("entry is not in the heap");
+		}
+		if (priority > entry.priority || (priority == entry.priority && tie <= entry.tie)) {
+			return;
+		}
+		entry.priority = priority;
+		entry.tie = tie;
+		siftUp(entry.index);
+	}
+
+	private boolean less(Entry<T> a, Entry<T> b) {
+		int c = Double.compare(a.priority, b.priority);
+		if (c != 0) {
+			return c < 0;
+		}
+		return a.tie > b.tie;
+	}
+
+	private void siftUp(int i) {
+		Entry<T> entry = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / d;
+			if (!less(entry, heap[parent])) {
+				break;
+			}
+			heap[i] = heap[parent];
+			heap[i].index = i;
+			i = parent;
+		}
+		heap[i] = entry;
+		entry.index = i;
+	}
+
+	private void siftDown(int i) {
+		Entry<T> entry = heap[i];
+		while (true) {
+			int first = d * i + 1;
+			if (first >= size) {
+				break;
+			}
+			int smallest = first;
+			int last = Math.min(first + d, size);
+			for (int c = first + 1; c < last; c++) {
+				if (less(heap[c], heap[smallest])) {
+					smallest = c;
+				}
+			}
+			if (!less(heap[smallest], entry)) {
+				break;
+			}
+			heap[i] = heap[smallest];
+			heap[i].index = i;
+			i = smallest;
+		}
+		heap[i] = entry;
+		entry.index = i;
+	}
+}
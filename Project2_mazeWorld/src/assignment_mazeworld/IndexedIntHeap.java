@@ -0,0 +1,155 @@
+package assignment_mazeworld;
+
+/**
+ * Description: binary min-heap of int items (grid cells, state ids) with
+ * decrease-key and no allocation per operation. Items are keyed by an int
+ * (f for A*); ties go to the larger tie value (g, the item closer to the
+ * goal). pos[item] is the item's slot in the heap; it is only read for items
+ * the caller knows are queued, so it never needs clearing. All arrays grow by
+ * doubling and are kept across clear(), so a reused heap stops allocating.
+ * Used by GridSearch, GeneralMazeProblem.astarSearchPacked and PathService.
+ */
+
+import java.util.Arrays;
+
+class IndexedIntHeap {
+	private int[] items = new int[1024];
+	private int[] keys = new int[1024];
+	private int[] ties = new int[1024];
+	private int size;
+	private int[] pos;
+
+	public IndexedIntHeap(int numItems) {
+		pos = new int[Math.max(numItems, 16)];
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void add(int item, int key, int tie) {
+		if (size == items.length) {
+			items = Arrays.copyOf(items, size * 2);
+			keys = Arrays.copyOf(keys, size * 2);
+			ties = Arrays.copyOf(ties, size * 2);
+		}
+		if (item >= pos.length) {
+			pos = Arrays.copyOf(pos, Math.max(pos.length * 2, item + 1));
+		}
+		items[size] = item;
+		keys[size] = key;
+		ties[size] = tie;
+		pos[item] = size;
+		siftUp(size++);
+	}
+
+	public int poll() {
+		int top = items[0];
+		size--;
+		if (size > 0) {
+			move(size, 0);
+			siftDown(0);
+		}
+		return top;
+	}
+
+	public int peekKey() {
+		return keys[0];
+	}
+
+	// pos is never cleared, so a stale slot is told apart by checking that
+	//  the item really sits there
+	public boolean contains(int item) {
+		if (item >= pos.length) {
+			return false;
+		}
+		int i = pos[item];
+		return i < size && items[i] == item;
+	}
+
+	// takes a queued item out, wherever it is
+	public void remove(int item) {
+		int i = pos[item];
+		size--;
+		if (i < size) {
+			move(size, i);
+			siftDown(i);
+			siftUp(i);
+		}
+	}
+
+	// the number of slots the heap arrays have room for, for memory accounting
+	public int capacity() {
+		return items.length;
+	}
+
+	// item must be queued, and key must not be larger than its current key
+	public void decreaseKey(int item, int key, int tie) {
+		int i = pos[item];
+		keys[i] = key;
+		ties[i] = tie;
+		siftUp(i);
+	}
+
+	private boolean less(int i, int j) {
+		if (keys[i] != keys[j]) {
+			return keys[i] < keys[j];
+		}
+		return ties[i] > ties[j];
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!less(i, parent)) {
+				break;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int left = 2 * i + 1;
+			if (left >= size) {
+				break;
+			}
+			int smallest = left;
+			if (left + 1 < size && less(left + 1, left)) {
+				smallest = left + 1;
+			}
+			if (!less(smallest, i)) {
+				break;
+			}
+			swap(i, smallest);
+			i = smallest;
+		}
+	}
+
+	private void move(int from, int to) {
+		items[to] = items[from];
+		keys[to] = keys[from];
+		ties[to] = ties[from];
+		pos[items[to]] = to;
+	}
+
+	private void swap(int i, int j) {
+		int item = items[i];
+		int key = keys[i];
+		int tie = ties[i];
+		move(j, i);
+		items[j] = item;
+		keys[j] = key;
+		ties[j] = tie;
+		pos[item] = j;
+	}
+}
@@ -3,10 +3,602 @@ package assignment_mazeworld;
 import java.util.*;
 
 public class InformedSearchProblem extends SearchProblem {
-	
+
+	// A* with an indexed heap as the frontier: every state is queued at most
+	//  once, and finding a cheaper path to a queued state lowers its key in place.
 	public List<SearchNode> astarSearch() {
         resetStats();
 
+        IndexedHeap<SearchNode> frontier = new IndexedHeap<SearchNode>();
+        HashMap<SearchNode, SearchNode> visited = new HashMap<SearchNode, SearchNode>();
+        // heap entry of every state seen so far; it holds the cheapest node found for the state
+        HashMap<SearchNode, IndexedHeap.Entry<SearchNode>> entries = new HashMap<SearchNode, IndexedHeap.Entry<SearchNode>>();
+
+        visited.put(startNode, null);
+        entries.put(startNode, frontier.add(startNode, startNode.priority(), startNode.getCost()));
+
+        while(!frontier.isEmpty()){
+            //====for stats purposes===
+            incrementNodeCount();
+            updateMemory(frontier.size() + visited.size() + entries.size());
+            updateFrontier(frontier.size());
+            //=========================
+
+            SearchNode currentNode = frontier.poll().getItem();
+            if(currentNode.goalTest()){
+                return backchain(currentNode, visited);
+            }
+            nodeClosed(currentNode);
+            List<SearchNode> children = currentNode.getSuccessors();
+            for(SearchNode child : children){
+                IndexedHeap.Entry<SearchNode> entry = entries.get(child);
+                if(entry == null && isDominated(child)){
+                    incrementPruned();
+                }else if(entry == null) {//never seen
+                    visited.put(child, currentNode);
+                    entries.put(child, frontier.add(child, child.priority(), child.getCost()));
+                }else if(entry.getItem().getCost() > child.getCost()){ // seen, but this path is cheaper
+                    visited.put(child, currentNode); //update the entry for this child
+                    entry.setItem(child);
+                    if(entry.isQueued()){
+                        frontier.decreaseKey(entry, child.priority(), child.getCost());
+                    }else{ // already expanded; only happens with an inconsistent heuristic
+                        frontier.add(entry, child.priority(), child.getCost());
+                        incrementReopened();
+                    }
+                }
+            }
+        }
+        return null;
+	}
+
+	// pruning hooks for problems whose states can make others redundant (see
+	//  BlindMazeProblem). astarSearch reports every node it expands to
+	//  nodeClosed, and skips a node when isDominated says some closed node is
+	//  at least as good. The defaults prune nothing.
+	protected void nodeClosed(SearchNode node) {
+	}
+
+	protected boolean isDominated(SearchNode node) {
+		return false;
+	}
+
+	//===============SolutionListener Interface===================
+	// told about every path anytimeSearch finds, each cheaper than the last.
+	//  bound is how far from optimal the path can be at most: its cost is
+	//  within bound times the cost of a shortest path.
+	public interface SolutionListener {
+		public void solutionFound(List<SearchNode> path, double cost, double bound);
+	}
+	//============================================================
+
+	// weighted A*: expands by g + weight * h, which usually reaches the goal
+	//  after far fewer expansions, with a path at most weight times longer
+	//  than the shortest one
+	public List<SearchNode> weightedAstarSearch(double weight) {
+		return anytimeSearch(weight, 0, Long.MAX_VALUE, null);
+	}
+
+	// anytime repairing A* (ARA*): a weighted A* with the given weight first,
+	//  then again and again with the weight lowered by weightStep, until it
+	//  reaches 1 (the path is then optimal) or the time budget runs out. Each
+	//  round goes on from the search tree of the last one instead of starting
+	//  over: a state is expanded at most once per round, and states that got
+	//  cheaper after their expansion wait in incons for the next round.
+	//  Every better path goes to listener (may be null); the best one found
+	//  is returned, or null if there was none in time. A weightStep of 0
+	//  stops after the first round.
+	public List<SearchNode> anytimeSearch(double weight, double weightStep, long timeBudgetMillis,
+			SolutionListener listener) {
+		if (weight < 1) {
+			throw new IllegalArgumentException("heuristic weight must be at least 1: " + weight);
+		}
+		resetStats();
+		long start = System.nanoTime();
+		long deadline = (timeBudgetMillis >= (Long.MAX_VALUE - start) / 1000000)
+				? Long.MAX_VALUE : start + timeBudgetMillis * 1000000;
+
+		IndexedHeap<SearchNode> frontier = new IndexedHeap<SearchNode>();
+		HashMap<SearchNode, SearchNode> visited = new HashMap<SearchNode, SearchNode>();
+		// heap entry of every state seen so far, holding its cheapest node
+		HashMap<SearchNode, IndexedHeap.Entry<SearchNode>> entries = new HashMap<SearchNode, IndexedHeap.Entry<SearchNode>>();
+		// states expanded this round, and expanded states that got cheaper since
+		HashSet<SearchNode> closed = new HashSet<SearchNode>();
+		ArrayList<IndexedHeap.Entry<SearchNode>> incons = new ArrayList<IndexedHeap.Entry<SearchNode>>();
+
+		visited.put(startNode, null);
+		entries.put(startNode, frontier.add(startNode, inflated(startNode, weight), startNode.getCost()));
+		// cheapest goal node found so far
+		SearchNode best = startNode.goalTest() ? startNode : null;
+		List<SearchNode> bestPath = null;
+
+		while (true) {
+			// improvePath: the round is done once nothing left in the frontier
+			//  could lead to a goal cheaper than the best one (in inflated terms)
+			while (!frontier.isEmpty()
+					&& (best == null || best.getCost() > frontier.peek().getPriority())) {
+				if ((nodesExplored & 255) == 0 && System.nanoTime() > deadline) {
+					// a goal generated this round may beat the last round's path.
+					//  The round isn't finished, so weight bounds nothing yet.
+					return reportBest(best, bestPath, visited, lowestPriority(best, entries, incons),
+							Double.POSITIVE_INFINITY, listener);
+				}
+				//====for stats purposes===
+				incrementNodeCount();
+				updateMemory(frontier.size() + visited.size() + entries.size() + closed.size());
+				updateFrontier(frontier.size());
+				//=========================
+
+				SearchNode currentNode = frontier.poll().getItem();
+				closed.add(currentNode);
+				for (SearchNode child : currentNode.getSuccessors()) {
+					IndexedHeap.Entry<SearchNode> entry = entries.get(child);
+					if (entry == null) {
+						visited.put(child, currentNode);
+						entries.put(child, frontier.add(child, inflated(child, weight), child.getCost()));
+					} else if (entry.getItem().getCost() > child.getCost()) {
+						visited.put(child, currentNode);
+						entry.setItem(child);
+						if (entry.isQueued()) {
+							frontier.decreaseKey(entry, inflated(child, weight), child.getCost());
+						} else if (closed.contains(child)) {
+							incons.add(entry);
+						} else { // expanded in an earlier round; open again in this one
+							frontier.add(entry, inflated(child, weight), child.getCost());
+							incrementReopened();
+						}
+					} else {
+						continue;
+					}
+					if (child.goalTest() && (best == null || child.getCost() < best.getCost())) {
+						best = child;
+					}
+				}
+			}
+
+			double lowest = lowestPriority(best, entries, incons);
+			bestPath = reportBest(best, bestPath, visited, lowest, weight, listener);
+			if (weight <= 1 || weightStep <= 0 || (frontier.isEmpty() && incons.isEmpty())
+					|| (best != null && best.getCost() <= lowest)) {
+				return bestPath;
+			}
+
+			// next round: a smaller weight only lowers the keys, so the
+			//  queued states are decreased in place and incons added back
+			weight = Math.max(1, weight - weightStep);
+			for (IndexedHeap.Entry<SearchNode> entry : entries.values()) {
+				if (entry.isQueued()) {
+					frontier.decreaseKey(entry, inflated(entry.getItem(), weight), entry.getItem().getCost());
+				}
+			}
+			for (IndexedHeap.Entry<SearchNode> entry : incons) {
+				if (!entry.isQueued()) {
+					frontier.add(entry, inflated(entry.getItem(), weight), entry.getItem().getCost());
+					incrementReopened();
+				}
+			}
+			incons.clear();
+			closed.clear();
+		}
+	}
+
+	// the bound for anytimeSearch: no goal can be cheaper than the smallest
+	//  g + h left to expand (closed states' successors are all seen already)
+	private static double lowestPriority(SearchNode best,
+			HashMap<SearchNode, IndexedHeap.Entry<SearchNode>> entries,
+			ArrayList<IndexedHeap.Entry<SearchNode>> incons) {
+		double lowest = (best == null) ? Double.POSITIVE_INFINITY : best.getCost();
+		for (IndexedHeap.Entry<SearchNode> entry : entries.values()) {
+			if (entry.isQueued()) {
+				lowest = Math.min(lowest, entry.getItem().priority());
+			}
+		}
+		for (IndexedHeap.Entry<SearchNode> entry : incons) {
+			lowest = Math.min(lowest, entry.getItem().priority());
+		}
+		return lowest;
+	}
+
+	// the path to best if it beats bestPath (and then the listener hears of
+	//  it), otherwise bestPath
+	private List<SearchNode> reportBest(SearchNode best, List<SearchNode> bestPath,
+			HashMap<SearchNode, SearchNode> visited, double lowest, double weight, SolutionListener listener) {
+		if (best == null || (bestPath != null && best.getCost() >= bestPath.get(bestPath.size() - 1).getCost())) {
+			return bestPath;
+		}
+		List<SearchNode> path = backchain(best, visited);
+		if (listener != null) {
+			double bound = (lowest > 0) ? Math.min(weight, best.getCost() / lowest) : 1;
+			listener.solutionFound(path, best.getCost(), Math.max(bound, 1));
+		}
+		return path;
+	}
+
+	private static double inflated(SearchNode node, double weight) {
+		return node.getCost() + weight * node.heuristic();
+	}
+
+	//====memory-bounded searches====
+	// both take a fixed amount of memory on top of the path itself, whatever
+	//  the size of the state space, and pay for it in repeated expansions
+
+	// f bound of the next IDA* iteration: the smallest f that went over the
+	//  current one
+	private double idaNextBound;
+	// nodes in the SMA* tree, and the cheapest tree node of each state in it
+	private int smaUsed;
+	private HashMap<SearchNode, SmaNode> smaInMemory;
+
+	// IDA*: depth-first searches with a bound on f = g + h, starting at the
+	//  start's h and raised each time to the smallest f that went over it.
+	//  Keeps only the current path, plus with tableSize > 0 a transposition
+	//  table (see TranspositionTable) so a state reached again in the same
+	//  iteration at no lower cost is cut off instead of searched again.
+	//  Optimal with an admissible heuristic.
+	public List<SearchNode> idaStarSearch(int tableSize) {
+		resetStats();
+		HashSet<SearchNode> currentPath = new HashSet<SearchNode>();
+		TranspositionTable table = (tableSize > 0) ? new TranspositionTable(tableSize) : null;
+
+		double bound = startNode.priority();
+		for (int iteration = 0; bound < Double.POSITIVE_INFINITY; iteration++) {
+			idaNextBound = Double.POSITIVE_INFINITY;
+			List<SearchNode> path = idaStar(startNode, currentPath, bound, table, iteration);
+			if (path != null) {
+				return path;
+			}
+			bound = idaNextBound;
+		}
+		return null;
+	}
+
+	private List<SearchNode> idaStar(SearchNode currentNode, HashSet<SearchNode> currentPath,
+			double bound, TranspositionTable table, int iteration) {
+		double f = currentNode.priority();
+		if (f > bound) {
+			idaNextBound = Math.min(idaNextBound, f);
+			return null;
+		}
+		// a state searched before in this iteration from a cost at least as
+		//  low has had every f over the bound below it counted already
+		if (table != null && !table.visit(currentNode, iteration)) {
+			incrementPruned();
+			return null;
+		}
+
+		currentPath.add(currentNode);
+		updateMemory(currentPath.size() + ((table == null) ? 0 : table.size()));
+		incrementNodeCount();
+
+		if (currentNode.goalTest()) {
+			LinkedList<SearchNode> path = new LinkedList<SearchNode>();
+			path.add(currentNode);
+			return path;
+		}
+
+		for (SearchNode s : currentNode.getSuccessors()) {
+			if (!currentPath.contains(s)) {
+				List<SearchNode> path = idaStar(s, currentPath, bound, table, iteration);
+				if (path != null) {
+					path.add(0, currentNode);
+					return path;
+				}
+			}
+		}
+
+		currentPath.remove(currentNode);
+		return null;
+	}
+
+	//================TranspositionTable class=================
+	// fixed-size table of states and the cheapest g each was searched at in
+	//  an iteration of IDA*. A state goes in the slot its hash picks and
+	//  replaces whatever was there, so the table never grows, and it favors
+	//  recent states, which are the likeliest to be reached again.
+	private static final class TranspositionTable {
+		private final SearchNode[] states;
+		private final double[] costs;
+		private final int[] iterations;
+		private int size;
+
+		TranspositionTable(int capacity) {
+			states = new SearchNode[capacity];
+			costs = new double[capacity];
+			iterations = new int[capacity];
+		}
+
+		int size() {
+			return size;
+		}
+
+		// false if node's state was already searched in this iteration at no
+		//  higher cost; otherwise records it and returns true
+		boolean visit(SearchNode node, int iteration) {
+			int slot = (node.hashCode() & 0x7fffffff) % states.length;
+			SearchNode state = states[slot];
+			if (state != null && iterations[slot] == iteration && costs[slot] <= node.getCost()
+					&& state.equals(node)) {
+				return false;
+			}
+			if (state == null) {
+				size++;
+			}
+			states[slot] = node;
+			costs[slot] = node.getCost();
+			iterations[slot] = iteration;
+			return true;
+		}
+	}
+
+	// SMA* (simplified memory-bounded A*): A* over a search tree of at most
+	//  maxNodes nodes. When the tree is full, the shallowest of the worst
+	//  leaves is forgotten, and its f is backed up into its parent, which is
+	//  queued again so the leaf can be regenerated if it turns out to be the
+	//  best option after all. Successors are generated one at a time, and a
+	//  node's f is raised to the smallest f of its successors once all of them
+	//  have been generated. Optimal if a shortest path fits in maxNodes nodes
+	//  (it has fewer than maxNodes states); otherwise returns the best path
+	//  that fits, or null if none does.
+	//  A state already in the tree at no higher cost isn't added again (it
+	//  would only repeat that node's work), and neither are moves back onto
+	//  the node's own path. A state can still be in the tree twice if the
+	//  second path to it is cheaper.
+	public List<SearchNode> smaStarSearch(int maxNodes) {
+		if (maxNodes < 2) {
+			throw new IllegalArgumentException("SMA* needs room for at least 2 nodes: " + maxNodes);
+		}
+		resetStats();
+
+		// ordered by f, deeper first, then oldest first: first() is the node to
+		//  expand and the last leaves are the ones to forget
+		TreeSet<SmaNode> open = new TreeSet<SmaNode>();
+		long[] counter = {0};
+		SmaNode root = new SmaNode(startNode, null, -1, startNode.priority(), counter[0]++);
+		open.add(root);
+		smaUsed = 1;
+		smaInMemory = new HashMap<SearchNode, SmaNode>();
+		smaInMemory.put(startNode, root);
+
+		while (!open.isEmpty()) {
+			//====for stats purposes===
+			incrementNodeCount();
+			updateMemory(smaUsed);
+			updateFrontier(open.size());
+			//=========================
+
+			SmaNode n = open.first();
+			if (n.f == Double.POSITIVE_INFINITY) {
+				smaInMemory = null;
+				return null; // nothing that fits in memory leads to a goal
+			}
+			if (n.node.goalTest()) {
+				LinkedList<SearchNode> path = new LinkedList<SearchNode>();
+				for (SmaNode p = n; p != null; p = p.parent) {
+					path.addFirst(p.node);
+				}
+				smaInMemory = null;
+				return path;
+			}
+
+			ArrayList<SearchNode> successors = n.node.getSuccessors();
+			if (n.childF == null) {
+				n.childF = new double[successors.size()];
+				Arrays.fill(n.childF, Double.NaN); // not generated yet
+			}
+			int i = n.nextSuccessor();
+			if (i >= 0) {
+				generate(open, n, i, successors.get(i), root, maxNodes, counter);
+			}
+			if (!n.hasPending()) {
+				if (n.children > 0) {
+					open.remove(n); // every successor that matters is in memory
+					n.queued = false;
+				} else {
+					setF(open, n, Double.POSITIVE_INFINITY); // a dead end: first to be forgotten
+				}
+			}
+			backUp(open, n);
+		}
+		smaInMemory = null;
+		return null;
+	}
+
+	// adds successor i of n to the tree, forgetting a leaf first if the tree
+	//  is full
+	private void generate(TreeSet<SmaNode> open, SmaNode n, int i, SearchNode s, SmaNode root,
+			int maxNodes, long[] counter) {
+		// a node at depth maxNodes - 1 fills memory with its path, so
+		//  unless it is a goal it can't lead anywhere
+		if (n.isOnPath(s) || (n.depth + 2 >= maxNodes && !s.goalTest())) {
+			n.childF[i] = Double.POSITIVE_INFINITY;
+			return;
+		}
+		// if the cheaper copy is forgotten later, its parent keeps its f, so
+		//  the way on through the state isn't lost
+		SmaNode copy = smaInMemory.get(s);
+		if (copy != null && copy.node.getCost() <= s.getCost()) {
+			n.childF[i] = Double.POSITIVE_INFINITY;
+			incrementPruned();
+			return;
+		}
+		if (smaUsed == maxNodes) {
+			SmaNode worst = null;
+			for (Iterator<SmaNode> it = open.descendingIterator(); it.hasNext() && worst == null; ) {
+				SmaNode candidate = it.next();
+				if (candidate.children == 0 && candidate != n && candidate != root) {
+					worst = candidate;
+				}
+			}
+			if (worst == null) { // only n's own path is in memory
+				n.childF[i] = Double.POSITIVE_INFINITY;
+				return;
+			}
+			forget(open, worst);
+			smaUsed--;
+			incrementReopened(); // it may well be generated again
+		}
+		// pathmax: a child's f is never below its parent's, nor below what it
+		//  was found to be before it was forgotten
+		double f = Math.max(n.f, s.priority());
+		if (!Double.isNaN(n.childF[i])) {
+			f = Math.max(f, n.childF[i]);
+		}
+		SmaNode child = new SmaNode(s, n, i, f, counter[0]++);
+		open.add(child);
+		smaInMemory.put(s, child);
+		n.childF[i] = f;
+		n.present.set(i);
+		n.children++;
+		smaUsed++;
+	}
+
+	// raises node's f to the best of its successors once all of them have
+	//  been generated, and passes the change on to its ancestors
+	private void backUp(TreeSet<SmaNode> open, SmaNode node) {
+		while (node != null && node.allGenerated()) {
+			double best = Double.POSITIVE_INFINITY;
+			for (double f : node.childF) {
+				best = Math.min(best, f);
+			}
+			if (best != node.f) {
+				setF(open, node, best);
+			}
+			SmaNode parent = node.parent;
+			if (parent == null || parent.childF[node.index] == node.f) {
+				return;
+			}
+			parent.childF[node.index] = node.f;
+			node = parent;
+		}
+	}
+
+	// drops a leaf; its parent remembers its f and is queued again, to
+	//  regenerate it or, if it is a leaf now, to be forgotten in turn
+	private void forget(TreeSet<SmaNode> open, SmaNode leaf) {
+		open.remove(leaf);
+		if (smaInMemory.get(leaf.node) == leaf) {
+			smaInMemory.remove(leaf.node);
+		}
+		SmaNode parent = leaf.parent;
+		parent.childF[leaf.index] = leaf.f;
+		parent.present.clear(leaf.index);
+		parent.children--;
+		if (!parent.queued && (parent.hasPending() || parent.children == 0)) {
+			parent.queued = true;
+			open.add(parent);
+		}
+	}
+
+	// f is part of the ordering, so a queued node has to be taken out first
+	private static void setF(TreeSet<SmaNode> open, SmaNode node, double f) {
+		if (node.queued) {
+			open.remove(node);
+			node.f = f;
+			open.add(node);
+		} else {
+			node.f = f;
+		}
+	}
+
+	//================SmaNode class=================
+	// a node of the SMA* tree around a SearchNode
+	private static class SmaNode implements Comparable<SmaNode> {
+		final SearchNode node;
+		final SmaNode parent;
+		// which of the parent's successors this is
+		final int index;
+		final int depth;
+		final long id;
+		double f;
+		// f of each successor: the live one's, the last one a forgotten
+		//  successor had, or NaN if it was never generated
+		double[] childF;
+		// successors in memory
+		final BitSet present = new BitSet();
+		int children;
+		boolean queued = true;
+
+		SmaNode(SearchNode node, SmaNode parent, int index, double f, long id) {
+			this.node = node;
+			this.parent = parent;
+			this.index = index;
+			this.depth = (parent == null) ? 0 : parent.depth + 1;
+			this.f = f;
+			this.id = id;
+		}
+
+		boolean allGenerated() {
+			for (double f : childF) {
+				if (Double.isNaN(f)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// the next successor to generate: one never generated, otherwise the
+		//  forgotten one with the lowest f. -1 if there is none worth it.
+		int nextSuccessor() {
+			int best = -1;
+			for (int i = 0; i < childF.length; i++) {
+				if (Double.isNaN(childF[i])) {
+					return i;
+				}
+				if (!present.get(i) && childF[i] < Double.POSITIVE_INFINITY
+						&& (best < 0 || childF[i] < childF[best])) {
+					best = i;
+				}
+			}
+			return best;
+		}
+
+		boolean hasPending() {
+			return nextSuccessor() >= 0;
+		}
+
+		boolean isOnPath(SearchNode state) {
+			for (SmaNode p = this; p != null; p = p.parent) {
+				if (p.node.equals(state)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public int compareTo(SmaNode other) {
+			int c = Double.compare(f, other.f);
+			if (c != 0) {
+				return c;
+			}
+			if (depth != other.depth) {
+				return other.depth - depth;
+			}
+			return Long.compare(id, other.id);
+		}
+	}
+
+	// A* on threads threads, each owning the states that hash to it (see
+	//  HashDistributedAstar). Optimal like astarSearch, but it doesn't call the
+	//  nodeClosed / isDominated hooks, which aren't safe to share between
+	//  threads. The stats are summed over the threads, and reopened counts the
+	//  states expanded again because they weren't expanded in f order.
+	public List<SearchNode> parallelAstarSearch(int threads) {
+		resetStats();
+		HashDistributedAstar search = new HashDistributedAstar(startNode, threads);
+		List<SearchNode> path = search.search();
+		nodesExplored = search.getNodesExplored();
+		updateMemory(search.getMaxMemory());
+		updateFrontier(search.getFrontierPeak());
+		reopenedNodes = search.getReopenedNodes();
+		return path;
+	}
+
+	// the original A*: a java.util.PriorityQueue that may hold several copies
+	//  of a state, with stale copies skipped through the costTable. Kept to
+	//  benchmark astarSearch against (see GeneralMazeBenchmark).
+	public List<SearchNode> astarSearchLazy() {
+        resetStats();
+
         Queue<SearchNode> frontier = new PriorityQueue<SearchNode>();
         HashMap<SearchNode, SearchNode> visited = new HashMap<SearchNode, SearchNode>();
         HashMap<SearchNode, Double> costTable = new HashMap<SearchNode, Double>();
@@ -19,6 +611,7 @@ public class InformedSearchProblem extends SearchProblem {
             //====for stats purposes===
             incrementNodeCount();
             updateMemory(frontier.size() + visited.size() + costTable.size());
+            updateFrontier(frontier.size());
             //=========================
 
             SearchNode currentNode = frontier.poll();
@@ -38,6 +631,7 @@ public class InformedSearchProblem extends SearchProblem {
                     visited.put(child, currentNode); //update the entry for this child
                     costTable.put(child, child.getCost()); //update the cost for this child
                     frontier.add(child); //add the lower cost child to the frontier
+                    incrementReopened();
                 }
             }
         }
@@ -47,29 +641,35 @@ public class InformedSearchProblem extends SearchProblem {
 	public List<SearchNode> UniformCostSearch(){
         resetStats();
 
-        Queue<SearchNode> frontier = new PriorityQueue<SearchNode>(
-                (a,b) -> {return (int) Math.signum(((SearchNode)a).getCost() - ((SearchNode)b).getCost());}
-                );
+        IndexedHeap<SearchNode> frontier = new IndexedHeap<SearchNode>();
         HashMap<SearchNode, SearchNode> visited = new HashMap<SearchNode, SearchNode>();
+        HashMap<SearchNode, IndexedHeap.Entry<SearchNode>> entries = new HashMap<SearchNode, IndexedHeap.Entry<SearchNode>>();
 
-        frontier.add(startNode);
         visited.put(startNode, null);
+        entries.put(startNode, frontier.add(startNode, startNode.getCost(), 0));
 
         while(!frontier.isEmpty()){
             //====for stats purposes===
             incrementNodeCount();
             updateMemory(frontier.size() + visited.size());
+            updateFrontier(frontier.size());
             //=========================
 
-            SearchNode currentNode = frontier.poll();
+            SearchNode currentNode = frontier.poll().getItem();
             if(currentNode.goalTest()){
                 return backchain(currentNode, visited);
             }
             List<SearchNode> children = currentNode.getSuccessors();
             for(SearchNode child : children){
-                if(!visited.containsKey(child)) {//if not in the visted hashMap add it
+                IndexedHeap.Entry<SearchNode> entry = entries.get(child);
+                if(entry == null) {//if not in the visted hashMap add it
                     visited.put(child, currentNode);
-                    frontier.add(child);
+                    entries.put(child, frontier.add(child, child.getCost(), 0));
+                }else if(entry.isQueued() && entry.getItem().getCost() > child.getCost()){
+                    // expanded states are final in ucs, queued ones can still get cheaper
+                    visited.put(child, currentNode);
+                    entry.setItem(child);
+                    frontier.decreaseKey(entry, child.getCost(), 0);
                 }
             }
         }
@@ -0,0 +1,94 @@
+package assignment_mazeworld;
+
+/**
+ * Description: open-addressing hash map from long keys (packed states) to
+ * non-negative int ids, with linear probing. No boxing and no entry objects,
+ * so a lookup allocates nothing; the table doubles when it is half full.
+ */
+
+import java.util.Arrays;
+
+class LongIndexMap {
+	private long[] keys;
+	private int[] values;
+	// values[i] == EMPTY marks a free slot, so any key (even 0) can be stored
+	private static final int EMPTY = -1;
+	private int size;
+	private int mask;
+
+	public LongIndexMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, EMPTY);
+		mask = capacity - 1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// the id stored for key, or -1 if there is none
+	public int get(long key) {
+		int i = slot(key);
+		while (values[i] != EMPTY) {
+			if (keys[i] == key) {
+				return values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	// stores key -> value (value >= 0), replacing any previous value
+	public void put(long key, int value) {
+		if (2 * (size + 1) > keys.length) {
+			grow();
+		}
+		int i = slot(key);
+		while (values[i] != EMPTY) {
+			if (keys[i] == key) {
+				values[i] = value;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		size++;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != EMPTY) {
+				put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	private int slot(long key) {
+		return (int) mix(key) & mask;
+	}
+
+	// the murmur3 64-bit finalizer: spreads every input bit over the whole
+	//  word, so packed coordinates that differ in a few low bits don't cluster
+	static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+}
@@ -1,48 +1,99 @@
 package assignment_mazeworld;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
 
 public class Maze {
 	final static Charset ENCODING = StandardCharsets.UTF_8;
 
+	// files are mapped this many bytes at a time (a single MappedByteBuffer
+	//  can't go past 2GB)
+	private static final long MAP_CHUNK = 1L << 30;
+
 	// A few useful constants to describe actions
 	public static int[] NORTH = {0, 1};
 	public static int[] EAST = {1, 0};
 	public static int[] SOUTH = {0, -1};
 	public static int[] WEST = {-1, 0};
 	public static int[] ZERO = {0, 0};
-	
+
 	public int width;
 	public int height;
-	
-	private char[][] grid;
 
+	// one bit per cell, set for floor tiles: bit y * width + x, (0, 0) at the
+	//  bottom left. Indexed with longs so grids past 2^31 cells still fit.
+	//  Only '.' is floor, every other character in the file is a wall.
+	private long[] floor;
+
+	// bumped by every setFloor, so caches built from the maze can tell that
+	//  they are stale (see getVersion)
+	private int version;
+
+	private Maze() {
+	}
+
+	// a width x height maze that is all wall, for generators to carve into
+	//  (see MazeGenerator)
+	public Maze(int width, int height) {
+		this.width = width;
+		this.height = height;
+		floor = new long[(int) (((long) width * height + 63) >>> 6)];
+	}
+
+	// reads the file through memory-mapped windows, so the only thing on the
+	//  heap is the bit grid (an eighth of a byte per cell). The first pass
+	//  counts the rows and finds the widest one, the second sets the floor
+	//  bits. Rows shorter than the widest are padded with walls.
 	public static Maze readFromFile(String filename) {
 		Maze m = new Maze();
 
-		try {
-			List<String> lines = readFile(filename);
-			m.height = lines.size();
-
-			int y = 0;
-			m.grid = new char[m.height][];
-			for (String line : lines) {
-				m.width = line.length();
-				m.grid[m.height - y - 1] = new char[m.width];
-				for (int x = 0; x < line.length(); x++) {
-					// (0, 0) should be bottom left, so flip y as 
-					//  we read from file into array:
-					m.grid[m.height - y - 1][x] = line.charAt(x);
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			MappedReader reader = new MappedReader(channel);
+			int lines = 0;
+			int column = 0;
+			int maxColumn = 0;
+			int b;
+			while ((b = reader.read()) >= 0) {
+				if (b == '\n') {
+					lines++;
+					column = 0;
+				} else if (isColumn(b)) {
+					column++;
+					maxColumn = Math.max(maxColumn, column);
 				}
-				y++;
+			}
+			if (column > 0) { // last line without a newline
+				lines++;
+			}
+			m.width = maxColumn;
+			m.height = lines;
+			m.floor = new long[(int) (((long) m.width * m.height + 63) >>> 6)];
 
-				// System.out.println(line.length());
+			// (0, 0) should be bottom left, so flip y as
+			//  we read from file into the grid:
+			reader = new MappedReader(channel);
+			int y = m.height - 1;
+			int x = 0;
+			while ((b = reader.read()) >= 0) {
+				if (b == '\n') {
+					y--;
+					x = 0;
+				} else if (isColumn(b)) {
+					if (b == '.') {
+						long cell = (long) y * m.width + x;
+						m.floor[(int) (cell >>> 6)] |= 1L << cell;
+					}
+					x++;
+				}
 			}
 
 			return m;
@@ -51,6 +102,40 @@ public class Maze {
 		}
 	}
 
+	// every byte but '\r' and the continuation bytes of a multi-byte utf-8
+	//  character starts a new column
+	private static boolean isColumn(int b) {
+		return b != '\r' && (b & 0xc0) != 0x80;
+	}
+
+	//================MappedReader class=================
+	// reads a file front to back, one mapped window of MAP_CHUNK bytes at a time
+	private static final class MappedReader {
+		private final FileChannel channel;
+		private final long size;
+		private long position;
+		private MappedByteBuffer buffer;
+
+		MappedReader(FileChannel channel) throws IOException {
+			this.channel = channel;
+			size = channel.size();
+		}
+
+		// the next byte, or -1 at the end of the file
+		int read() throws IOException {
+			if (buffer == null || !buffer.hasRemaining()) {
+				if (position >= size) {
+					return -1;
+				}
+				long length = Math.min(MAP_CHUNK, size - position);
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				position += length;
+			}
+			return buffer.get() & 0xff;
+		}
+	}
+	//===================================================
+
     /**
      *
      * @return the [width, height] of the maze
@@ -59,35 +144,74 @@ public class Maze {
         return new int[]{width, height};
     }
 
-	private static List<String> readFile(String fileName) throws IOException {
-		Path path = Paths.get(fileName);
-		return Files.readAllLines(path, ENCODING);
+	public char getChar(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is off the " + width + "x" + height + " map");
+		}
+		return isFloor(x, y) ? '.' : '#';
 	}
 
-	public char getChar(int x, int y) {
-		return grid[y][x];
+	private boolean isFloor(int x, int y) {
+		long cell = (long) y * width + x;
+		return (floor[(int) (cell >>> 6)] & (1L << cell)) != 0;
+	}
+
+	// carve (floor = true) or fill in a cell. DistanceTables and
+	//  SimpleMazeProblem's grid engine notice the change through getVersion,
+	//  and PathService repairs its trees (go through PathService.setWall for
+	//  that). Other problems read the maze in their constructors, so build
+	//  new ones after changing it.
+	void setFloor(int x, int y, boolean isFloor) {
+		version++;
+		long cell = (long) y * width + x;
+		if (isFloor) {
+			floor[(int) (cell >>> 6)] |= 1L << cell;
+		} else {
+			floor[(int) (cell >>> 6)] &= ~(1L << cell);
+		}
 	}
-	
+
+	public int getVersion() {
+		return version;
+	}
+
 	// is the location x, y on the map, and also a legal floor tile (not a wall)?
 	public boolean isLegal(int x, int y) {
 		// on the map
 		if(x >= 0 && x < width && y >= 0 && y < height) {
 			// and it's a floor tile, not a wall tile:
-			return getChar(x, y) == '.';
+			return isFloor(x, y);
 		}
 		return false;
 	}
-	
-	
-	public String toString() {
-		String s = "";
-		for (int y = 0; y < height; y++) {
+
+	// writes the maze in the format readFromFile reads (top row first), a
+	//  row at a time, so a big maze never has to be one String
+	public void write(Writer out) throws IOException {
+		char[] row = new char[width + 1];
+		row[width] = '\n';
+		for (int y = height - 1; y >= 0; y--) {
 			for (int x = 0; x < width; x++) {
-				s += grid[y][x];
+				row[x] = isFloor(x, y) ? '.' : '#';
 			}
-			s += "\n";
+			out.write(row);
+		}
+	}
+
+	public void writeToFile(String filename) throws IOException {
+		try (Writer out = Files.newBufferedWriter(Paths.get(filename), ENCODING)) {
+			write(out);
+		}
+	}
+
+	public String toString() {
+		StringWriter s = new StringWriter((int) Math.min(Integer.MAX_VALUE - 8, (long) (width + 1) * height));
+		try {
+			write(s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // a StringWriter doesn't throw
 		}
-		return s;
+		return s.toString();
 	}
 
 	public static void main(String args[]) {
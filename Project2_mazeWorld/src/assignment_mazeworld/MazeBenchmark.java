@@ -0,0 +1,178 @@
+package assignment_mazeworld;
+
+/**
+ * Description: runs bfs, memoizing dfs, iterative deepening, ucs and A* on
+ * generated mazes (see MazeGenerator) of growing size, for the single agent
+ * SimpleMazeProblem, the k-agent GeneralMazeProblem and the sensorless
+ * BlindMazeProblem. Prints one csv row per search, with nodes explored, peak
+ * memory (the searches' own maxMemory count) and wall time. No graphics, so
+ * it runs anywhere.
+ * usage: MazeBenchmark [sizes, comma separated] [agents] [seed] [repeats]
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+public class MazeBenchmark {
+
+	static final String[] ALGORITHMS = {"bfs", "dfs-memo", "ids", "ucs", "astar"};
+
+	// largest maze side each algorithm is run on, in ALGORITHMS order. Past
+	//  these the search takes minutes or runs out of memory: iterative
+	//  deepening is exponential in the path length on any maze with cycles,
+	//  and the joint and belief state spaces grow exponentially with the
+	//  number of agents / belief cells.
+	private static final int[] SIMPLE_LIMITS = {4096, 256, 8, 4096, 4096};
+	private static final int[] GENERAL_LIMITS = {32, 16, 4, 32, 64};
+	private static final int[] BLIND_LIMITS = {8, 8, 4, 8, 64};
+
+	// the blind agent starts somewhere in the BLIND_START x BLIND_START square
+	//  at the bottom left corner
+	private static final int BLIND_START = 3;
+
+	public static void main(final String args[]) throws InterruptedException {
+		// the dfs searches recurse once per step of the path, which overflows
+		//  the default stack on the larger mazes
+		Thread runner = new Thread(null, new Runnable() {
+			public void run() {
+				runAll(args);
+			}
+		}, "MazeBenchmark", 1L << 29);
+		runner.start();
+		runner.join();
+	}
+
+	private static void runAll(String args[]) {
+		String[] sizeList = ((args.length > 0) ? args[0] : "8,16,32,64").split(",");
+		int numAgents = (args.length > 1) ? Integer.parseInt(args[1]) : 2;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : 76;
+		int repeats = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+
+		System.out.println("maze,size,problem,agents,algorithm,pathLength,nodesExplored,maxMemory,millis");
+		for (MazeGenerator.Type type : MazeGenerator.Type.values()) {
+			for (String sizeArg : sizeList) {
+				int size = Integer.parseInt(sizeArg.trim());
+				Maze maze = MazeGenerator.generate(type, size, size, seed);
+				String label = type.name().toLowerCase() + "," + size;
+
+				SimpleMazeProblem simple = new SimpleMazeProblem(maze, 0, 0, size - 1, size - 1);
+				GeneralMazeProblem general = generalProblem(maze, numAgents, new Random(seed));
+				BlindMazeProblem blind = new BlindMazeProblem(maze, blindStart(maze), size - 1, size - 1);
+				int floorCells = countFloor(maze);
+
+				for (int r = 0; r < repeats; r++) { // the last repeat is the one to read
+					for (int a = 0; a < ALGORITHMS.length; a++) {
+						if (withinLimits("simple", ALGORITHMS[a], size)) {
+							run(label + ",simple,1", ALGORITHMS[a], simple, floorCells);
+						}
+						if (withinLimits("general", ALGORITHMS[a], size) && general != null) {
+							run(label + ",general," + numAgents, ALGORITHMS[a], general, floorCells * numAgents);
+						}
+						if (withinLimits("blind", ALGORITHMS[a], size)) {
+							run(label + ",blind,1", ALGORITHMS[a], blind, floorCells);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static void run(String label, String algorithm, InformedSearchProblem problem, int maxDepth) {
+		long start = System.nanoTime();
+		List<SearchProblem.SearchNode> path = search(problem, algorithm, maxDepth);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(label + "," + algorithm + ","
+				+ ((path == null) ? -1 : path.size()) + ","
+				+ problem.getNodesExplored() + "," + problem.getMaxMemory() + ","
+				+ String.format("%.3f", elapsed / 1e6));
+	}
+
+	// one of ALGORITHMS; maxDepth only matters to the two dfs searches
+	static List<SearchProblem.SearchNode> search(InformedSearchProblem problem, String algorithm, int maxDepth) {
+		if (algorithm.equals("bfs")) {
+			return problem.breadthFirstSearch();
+		} else if (algorithm.equals("dfs-memo")) {
+			return problem.depthFirstMemoizingSearch(maxDepth);
+		} else if (algorithm.equals("ids")) {
+			return problem.IDSearch(maxDepth);
+		} else if (algorithm.equals("ucs")) {
+			return problem.UniformCostSearch();
+		} else if (algorithm.equals("astar")) {
+			return problem.astarSearch();
+		}
+		throw new IllegalArgumentException("unknown search " + algorithm);
+	}
+
+	static boolean isAlgorithm(String algorithm) {
+		return Arrays.asList(ALGORITHMS).contains(algorithm);
+	}
+
+	// whether the search is small enough to run: see the *_LIMITS above
+	static boolean withinLimits(String problem, String algorithm, int size) {
+		int a = Arrays.asList(ALGORITHMS).indexOf(algorithm);
+		int[] limits = problem.equals("simple") ? SIMPLE_LIMITS
+				: problem.equals("general") ? GENERAL_LIMITS : BLIND_LIMITS;
+		return a >= 0 && size <= limits[a];
+	}
+
+	// agents start and end on distinct random floor cells that are connected
+	//  to the goal corner (open fields can have walled-off pockets); null if
+	//  the maze doesn't have enough of them
+	static GeneralMazeProblem generalProblem(Maze maze, int numAgents, Random random) {
+		int[] distances = DistanceTables.get(maze, maze.width - 1, maze.height - 1);
+		ArrayList<int[]> cells = new ArrayList<int[]>();
+		for (int cell = 0; cell < distances.length; cell++) {
+			if (distances[cell] != DistanceTables.UNREACHABLE) {
+				cells.add(new int[]{cell % maze.width, cell / maze.width});
+			}
+		}
+		if (cells.size() < numAgents) {
+			return null;
+		}
+		int[][] starts = new int[numAgents][];
+		int[][] goals = new int[numAgents][];
+		ArrayList<int[]> free = new ArrayList<int[]>(cells);
+		for (int i = 0; i < numAgents; i++) {
+			starts[i] = free.remove(random.nextInt(free.size()));
+		}
+		free = new ArrayList<int[]>(cells);
+		for (int i = 0; i < numAgents; i++) {
+			goals[i] = free.remove(random.nextInt(free.size()));
+		}
+		return new GeneralMazeProblem(maze, starts, goals);
+	}
+
+	// floor cells of the bottom left corner square that are connected to the
+	//  goal corner, as BlindMazeProblem wants them
+	private static HashSet<ArrayList<Integer>> blindStart(Maze maze) {
+		int[] distances = DistanceTables.get(maze, maze.width - 1, maze.height - 1);
+		HashSet<ArrayList<Integer>> belief = new HashSet<ArrayList<Integer>>();
+		for (int y = 0; y < Math.min(BLIND_START, maze.height); y++) {
+			for (int x = 0; x < Math.min(BLIND_START, maze.width); x++) {
+				if (distances[y * maze.width + x] != DistanceTables.UNREACHABLE) {
+					ArrayList<Integer> loc = new ArrayList<Integer>();
+					loc.add(x);
+					loc.add(y);
+					belief.add(loc);
+				}
+			}
+		}
+		return belief;
+	}
+
+	static int countFloor(Maze maze) {
+		int count = 0;
+		for (int y = 0; y < maze.height; y++) {
+			for (int x = 0; x < maze.width; x++) {
+				if (maze.isLegal(x, y)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,248 @@
+package assignment_mazeworld;
+
+/**
+ * Description: seeded random mazes of any size, for benchmarking the searches
+ * (see MazeBenchmark). The same type, size and seed always give the same maze.
+ * Every kind keeps the bottom left (0, 0) and top right (width - 1,
+ * height - 1) corners on the floor and connected to each other, so they can
+ * serve as start and goal.
+ *  - PERFECT: a recursive-backtracker maze. Exactly one path between any two
+ *    cells, with long winding dead ends.
+ *  - ROOMS: recursive division into open rooms joined by one-cell doors.
+ *  - OPEN: an open field with random single-cell obstacles.
+ *  - CORRIDORS: a sidewinder maze. Long one-cell-wide east-west corridors
+ *    joined by short north-south passages, also with one path between cells.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class MazeGenerator {
+
+	public enum Type {
+		PERFECT, ROOMS, OPEN, CORRIDORS
+	}
+
+	// rooms stop being divided once neither side is longer than this
+	private static final int ROOM_SIZE = 8;
+	// share of the cells that are obstacles in an OPEN maze
+	private static final int OBSTACLE_PERCENT = 25;
+
+	private MazeGenerator() {
+	}
+
+	public static Maze generate(Type type, int width, int height, long seed) {
+		if (width < 2 || height < 2) {
+			throw new IllegalArgumentException("mazes must be at least 2x2: " + width + "x" + height);
+		}
+		Random random = new Random(seed);
+		switch (type) {
+		case PERFECT:
+			return perfect(width, height, random);
+		case ROOMS:
+			return rooms(width, height, random);
+		case OPEN:
+			return open(width, height, OBSTACLE_PERCENT, random);
+		case CORRIDORS:
+			return corridors(width, height, random);
+		default:
+			throw new IllegalArgumentException("unknown maze type " + type);
+		}
+	}
+
+	//====lattice mazes====
+	// PERFECT and CORRIDORS carve on a lattice: the cells at even (x, y) are
+	//  rooms, and the cells between two neighboring rooms are the walls that
+	//  can be knocked down.
+
+	private static Maze perfect(int width, int height, Random random) {
+		Maze maze = new Maze(width, height);
+		int cols = (width + 1) / 2;
+		int rows = (height + 1) / 2;
+		boolean[] visited = new boolean[cols * rows];
+		// depth-first walk over the rooms with an explicit stack
+		int[] stack = new int[cols * rows];
+		int top = 0;
+		stack[top++] = 0;
+		visited[0] = true;
+		maze.setFloor(0, 0, true);
+		int[] unvisited = new int[4];
+		while (top > 0) {
+			int room = stack[top - 1];
+			int cx = room % cols;
+			int cy = room / cols;
+			int count = 0;
+			if (cy + 1 < rows && !visited[room + cols]) unvisited[count++] = room + cols;
+			if (cx + 1 < cols && !visited[room + 1]) unvisited[count++] = room + 1;
+			if (cy > 0 && !visited[room - cols]) unvisited[count++] = room - cols;
+			if (cx > 0 && !visited[room - 1]) unvisited[count++] = room - 1;
+			if (count == 0) {
+				top--;
+				continue;
+			}
+			int next = unvisited[random.nextInt(count)];
+			visited[next] = true;
+			knockThrough(maze, cols, room, next);
+			stack[top++] = next;
+		}
+		connectCorner(maze);
+		return maze;
+	}
+
+	// sidewinder: each lattice row is cut into runs of rooms joined east to
+	//  west, and every run gets one passage north from a random room in it.
+	//  The top row is a single corridor.
+	private static Maze corridors(int width, int height, Random random) {
+		Maze maze = new Maze(width, height);
+		int cols = (width + 1) / 2;
+		int rows = (height + 1) / 2;
+		for (int cy = 0; cy < rows; cy++) {
+			int runStart = 0;
+			for (int cx = 0; cx < cols; cx++) {
+				int room = cy * cols + cx;
+				maze.setFloor(2 * cx, 2 * cy, true);
+				boolean lastRow = cy == rows - 1;
+				boolean lastCol = cx == cols - 1;
+				// runs get long: close one only one time in four
+				if (lastRow || (!lastCol && random.nextInt(4) != 0)) {
+					if (!lastCol) {
+						knockThrough(maze, cols, room, room + 1);
+					}
+				} else {
+					int north = cy * cols + runStart + random.nextInt(cx - runStart + 1);
+					knockThrough(maze, cols, north, north + cols);
+					runStart = cx + 1;
+				}
+			}
+		}
+		connectCorner(maze);
+		return maze;
+	}
+
+	// carves two neighboring lattice rooms and the wall between them
+	private static void knockThrough(Maze maze, int cols, int room, int next) {
+		int x = 2 * (room % cols);
+		int y = 2 * (room / cols);
+		int nx = 2 * (next % cols);
+		int ny = 2 * (next / cols);
+		maze.setFloor(x, y, true);
+		maze.setFloor((x + nx) / 2, (y + ny) / 2, true);
+		maze.setFloor(nx, ny, true);
+	}
+
+	// with an even width or height the top right corner is off the lattice;
+	//  hook it onto the nearest room with a dead-end spur (no new cycles)
+	private static void connectCorner(Maze maze) {
+		int x = maze.width - 1;
+		int y = maze.height - 1;
+		maze.setFloor(x, y, true);
+		if (x % 2 == 1 && y % 2 == 1) {
+			maze.setFloor(x, y - 1, true);
+		}
+	}
+
+	//====rooms====
+	// recursive division: start with one open room and keep splitting rooms
+	//  with a wall that has a single door. Walls only go on odd rows and
+	//  columns and doors only on even ones, so a later wall never ends up
+	//  across an earlier door.
+	private static Maze rooms(int width, int height, Random random) {
+		Maze maze = new Maze(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				maze.setFloor(x, y, true);
+			}
+		}
+		// regions still to split, as x, y, width, height
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = 0;
+		stack[top++] = width;
+		stack[top++] = height;
+		while (top > 0) {
+			int h = stack[--top];
+			int w = stack[--top];
+			int y0 = stack[--top];
+			int x0 = stack[--top];
+			if (w <= ROOM_SIZE && h <= ROOM_SIZE) {
+				continue;
+			}
+			boolean vertical = (w == h) ? random.nextBoolean() : w > h;
+			int length = vertical ? w : h;
+			int start = vertical ? x0 : y0;
+			// odd positions strictly inside the region
+			int first = start + 1 + (start % 2 == 0 ? 0 : 1);
+			int last = start + length - 2;
+			if (first > last) {
+				continue;
+			}
+			int wall = first + 2 * random.nextInt((last - first) / 2 + 1);
+			// even positions along the wall; regions start on an even row/column
+			int along = vertical ? y0 : x0;
+			int span = vertical ? h : w;
+			int door = along + 2 * random.nextInt((span + 1) / 2);
+			for (int i = along; i < along + span; i++) {
+				if (i != door) {
+					if (vertical) {
+						maze.setFloor(wall, i, false);
+					} else {
+						maze.setFloor(i, wall, false);
+					}
+				}
+			}
+			if (top + 8 > stack.length) {
+				stack = Arrays.copyOf(stack, stack.length * 2);
+			}
+			if (vertical) {
+				push(stack, top, x0, y0, wall - x0, h);
+				push(stack, top + 4, wall + 1, y0, x0 + w - wall - 1, h);
+			} else {
+				push(stack, top, x0, y0, w, wall - y0);
+				push(stack, top + 4, x0, wall + 1, w, y0 + h - wall - 1);
+			}
+			top += 8;
+		}
+		return maze;
+	}
+
+	private static void push(int[] stack, int top, int x, int y, int w, int h) {
+		stack[top] = x;
+		stack[top + 1] = y;
+		stack[top + 2] = w;
+		stack[top + 3] = h;
+	}
+
+	//====open field====
+	// scattered obstacles, then a random staircase path from corner to corner
+	//  is cleared so the corners are always connected
+	private static Maze open(int width, int height, int obstaclePercent, Random random) {
+		Maze maze = new Maze(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				maze.setFloor(x, y, random.nextInt(100) >= obstaclePercent);
+			}
+		}
+		int x = 0;
+		int y = 0;
+		maze.setFloor(x, y, true);
+		while (x < width - 1 || y < height - 1) {
+			if (y == height - 1 || (x < width - 1 && random.nextBoolean())) {
+				x++;
+			} else {
+				y++;
+			}
+			maze.setFloor(x, y, true);
+		}
+		return maze;
+	}
+
+	// prints a maze: MazeGenerator [type] [width] [height] [seed]
+	public static void main(String args[]) {
+		Type type = (args.length > 0) ? Type.valueOf(args[0].toUpperCase()) : Type.PERFECT;
+		int width = (args.length > 1) ? Integer.parseInt(args[1]) : 31;
+		int height = (args.length > 2) ? Integer.parseInt(args[2]) : 15;
+		long seed = (args.length > 3) ? Long.parseLong(args[3]) : 76;
+		System.out.print(generate(type, width, height, seed));
+	}
+}
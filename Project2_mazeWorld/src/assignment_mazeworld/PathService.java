@@ -0,0 +1,337 @@
+package assignment_mazeworld;
+
+/**
+ * Description: answers many single agent path queries on one maze by keeping
+ * a search tree per goal instead of searching from scratch each time. A tree
+ * is a reverse Dijkstra search out of its goal, grown only as far as the
+ * starts asked for so far need, so a later query from a nearby start usually
+ * costs little more than walking the path. Trees are kept least recently used
+ * first and dropped once their estimated size passes the memory budget.
+ * Walls changed through setWall are repaired in place with LPA* (lifelong
+ * planning A*): only the cells whose distance to the goal really changed are
+ * expanded again, on the next query that needs them.
+ * Cells are numbered like GridSearch (y * width + x).
+ */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+public class PathService {
+
+	private static final int[][] ACTIONS = {Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST};
+
+	// distance of a cell not (yet) known to reach the goal; small enough that
+	//  INF + 1 doesn't overflow
+	private static final int INF = Integer.MAX_VALUE / 2;
+
+	private final Maze maze;
+	private final int width;
+	private final int height;
+	private long memoryBudget;
+
+	// goal cell -> tree, in access order, so the first entry is the one to evict
+	private final LinkedHashMap<Integer, Tree> trees = new LinkedHashMap<Integer, Tree>(16, 0.75f, true);
+	// the maze version the trees were built against; a change made to the
+	//  maze directly (not through setWall) throws them all away
+	private int mazeVersion;
+
+	// cells expanded by the last query, and by all queries and repairs
+	private int nodesExplored;
+	private long totalExpansions;
+	private int evictions;
+
+	public PathService(Maze maze, long memoryBudgetBytes) {
+		this.maze = maze;
+		width = maze.width;
+		height = maze.height;
+		memoryBudget = memoryBudgetBytes;
+		mazeVersion = maze.getVersion();
+	}
+
+	// the cells from (sx, sy) to (gx, gy), or null if there is no path
+	public synchronized int[] path(int sx, int sy, int gx, int gy) {
+		nodesExplored = 0;
+		if (!maze.isLegal(sx, sy) || !maze.isLegal(gx, gy)) {
+			return null;
+		}
+		if (mazeVersion != maze.getVersion()) {
+			trees.clear();
+			mazeVersion = maze.getVersion();
+		}
+		int goal = gy * width + gx;
+		Tree tree = trees.get(goal);
+		if (tree == null) {
+			tree = new Tree(goal);
+			trees.put(goal, tree);
+		}
+		int[] path = tree.path(sy * width + sx);
+		evict(tree);
+		return path;
+	}
+
+	// puts up (wall = true) or takes down a wall and repairs every cached tree
+	public synchronized void setWall(int x, int y, boolean wall) {
+		if (maze.isLegal(x, y) != wall) {
+			return;
+		}
+		boolean upToDate = mazeVersion == maze.getVersion();
+		maze.setFloor(x, y, !wall);
+		if (!upToDate) {
+			trees.clear();
+		}
+		mazeVersion = maze.getVersion();
+
+		// the cell and its neighbors are the only ones whose one-step
+		//  lookahead changed; the rest of the repair happens in the next query
+		int cell = y * width + x;
+		for (Tree tree : trees.values()) {
+			tree.updateVertex(cell);
+			for (int a = 0; a < ACTIONS.length; a++) {
+				int next = neighbor(cell, a);
+				if (next >= 0) {
+					tree.updateVertex(next);
+				}
+			}
+		}
+	}
+
+	// a new budget, for services that share one (see BatchSolver); trees
+	//  are dropped at once if the old ones don't fit
+	public synchronized void setMemoryBudget(long memoryBudgetBytes) {
+		memoryBudget = memoryBudgetBytes;
+		evict(null);
+	}
+
+	public int getNodesExplored() {
+		return nodesExplored;
+	}
+
+	public long getTotalExpansions() {
+		return totalExpansions;
+	}
+
+	public synchronized int getTreeCount() {
+		return trees.size();
+	}
+
+	public int getEvictions() {
+		return evictions;
+	}
+
+	public synchronized long getMemoryUsed() {
+		long bytes = 0;
+		for (Tree tree : trees.values()) {
+			bytes += tree.bytes();
+		}
+		return bytes;
+	}
+
+	// drops least recently used trees until the rest fit the budget; the tree
+	//  just used is kept even if it doesn't fit on its own
+	private void evict(Tree current) {
+		long bytes = getMemoryUsed();
+		Iterator<Tree> it = trees.values().iterator();
+		while (bytes > memoryBudget && it.hasNext()) {
+			Tree tree = it.next();
+			if (tree != current) {
+				bytes -= tree.bytes();
+				it.remove();
+				evictions++;
+			}
+		}
+	}
+
+	// the cell reached by taking action a from cell, or -1 off the map. Walls
+	//  are not checked: the trees need the neighbors of a wall too.
+	private int neighbor(int cell, int a) {
+		int x = cell % width + ACTIONS[a][0];
+		int y = cell / width + ACTIONS[a][1];
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			return -1;
+		}
+		return y * width + x;
+	}
+
+	private boolean isOpen(int cell) {
+		return maze.isLegal(cell % width, cell / width);
+	}
+
+
+	//================Tree class=================
+	// LPA* rooted at the goal, searching backwards (moves are reversible).
+	//  g is the distance the tree settled on, rhs the one-step lookahead
+	//  (1 + the smallest g of the neighbors); a cell is consistent when the
+	//  two agree, and the queue holds exactly the inconsistent ones keyed by
+	//  min(g, rhs). There is no heuristic: the tree serves every start, so it
+	//  can't be focused on one the way D* Lite focuses on the robot.
+	private class Tree {
+		private final int goal;
+		private final int[] g;
+		private final int[] rhs;
+		private final IndexedIntHeap queue;
+
+		Tree(int goal) {
+			this.goal = goal;
+			g = new int[width * height];
+			rhs = new int[width * height];
+			Arrays.fill(g, INF);
+			Arrays.fill(rhs, INF);
+			queue = new IndexedIntHeap(width * height);
+			rhs[goal] = 0;
+			queue.add(goal, 0, 0);
+		}
+
+		int[] path(int start) {
+			computeShortestPath(start);
+			if (g[start] >= INF) {
+				return null;
+			}
+			// every cell with a smaller g than the start's is consistent once
+			//  computeShortestPath is done, so going downhill gives a
+			//  shortest path
+			int[] cells = new int[g[start] + 1];
+			int cell = start;
+			for (int i = 0; i < cells.length - 1; i++) {
+				cells[i] = cell;
+				int best = -1;
+				for (int a = 0; a < ACTIONS.length; a++) {
+					int next = neighbor(cell, a);
+					if (next >= 0 && (best < 0 || g[next] < g[best])) {
+						best = next;
+					}
+				}
+				cell = best;
+			}
+			cells[cells.length - 1] = cell;
+			return cells;
+		}
+
+		// expands cells until start is consistent and nothing left in the
+		//  queue could still lower it
+		private void computeShortestPath(int start) {
+			while (!queue.isEmpty()
+					&& (queue.peekKey() < Math.min(g[start], rhs[start]) || g[start] != rhs[start])) {
+				int cell = queue.poll();
+				nodesExplored++;
+				totalExpansions++;
+				if (g[cell] > rhs[cell]) {
+					// overconsistent: the cell got closer, settle it
+					g[cell] = rhs[cell];
+				} else {
+					// underconsistent: the path it relied on is gone; reopen it
+					//  and let its neighbors find another
+					g[cell] = INF;
+					updateVertex(cell);
+				}
+				for (int a = 0; a < ACTIONS.length; a++) {
+					int next = neighbor(cell, a);
+					if (next >= 0) {
+						updateVertex(next);
+					}
+				}
+			}
+		}
+
+		void updateVertex(int cell) {
+			if (!isOpen(cell)) {
+				rhs[cell] = INF;
+			} else if (cell == goal) {
+				rhs[cell] = 0;
+			} else {
+				int best = INF;
+				for (int a = 0; a < ACTIONS.length; a++) {
+					int next = neighbor(cell, a);
+					if (next >= 0 && isOpen(next) && g[next] + 1 < best) {
+						best = g[next] + 1;
+					}
+				}
+				rhs[cell] = best;
+			}
+			if (queue.contains(cell)) {
+				queue.remove(cell);
+			}
+			if (g[cell] != rhs[cell]) {
+				queue.add(cell, Math.min(g[cell], rhs[cell]), 0);
+			}
+		}
+
+		// g and rhs, the heap's three arrays and its position index
+		long bytes() {
+			return 12L * g.length + 12L * queue.capacity();
+		}
+	}
+
+	// runs batches of queries from starts near a few goals against A* from
+	//  scratch, then again while walls come and go.
+	//  usage: PathService [size] [queries] [budgetMB]
+	public static void main(String args[]) {
+		int size = (args.length > 0) ? Integer.parseInt(args[0]) : 1024;
+		int queries = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+		long budget = ((args.length > 2) ? Long.parseLong(args[2]) : 64) << 20;
+
+		Maze maze = GridSearch.randomMaze(size, 25, 76);
+		PathService service = new PathService(maze, budget);
+		Random random = new Random(76);
+		int[][] goals = new int[4][];
+		for (int i = 0; i < goals.length; i++) {
+			goals[i] = randomFloor(maze, random, 0, 0, size);
+		}
+		// starts cluster around one spot, like units heading out from a base
+		int[] base = randomFloor(maze, random, 0, 0, size);
+
+		for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+			long serviceTime = 0;
+			long astarTime = 0;
+			long serviceExpansions = 0;
+			long astarExpansions = 0;
+			int mismatches = 0;
+			for (int q = 0; q < queries; q++) {
+				if (round == 1 && q % 10 == 0) {
+					int[] cell = randomFloor(maze, random, 0, 0, size);
+					int[] wall = randomFloor(maze, random, cell[0], cell[1], 8);
+					service.setWall(wall[0], wall[1], random.nextBoolean());
+				}
+				int[] goal = goals[random.nextInt(goals.length)];
+				int[] start = randomFloor(maze, random, base[0], base[1], 32);
+
+				long t0 = System.nanoTime();
+				int[] cached = service.path(start[0], start[1], goal[0], goal[1]);
+				long t1 = System.nanoTime();
+				// a fresh engine each time, as a SimpleMazeProblem would after a
+				//  wall change
+				GridSearch grid = new GridSearch(maze);
+				long t2 = System.nanoTime();
+				int[] fresh = grid.astarSearch(grid.cell(start[0], start[1]), grid.cell(goal[0], goal[1]));
+				long t3 = System.nanoTime();
+
+				serviceTime += t1 - t0;
+				astarTime += t3 - t2;
+				serviceExpansions += service.getNodesExplored();
+				astarExpansions += grid.getNodesExplored();
+				if ((cached == null) != (fresh == null) || (cached != null && cached.length != fresh.length)) {
+					mismatches++;
+				}
+			}
+			System.out.println((round == 0 ? "fixed walls" : "changing walls") + ": " + queries + " queries");
+			System.out.println("  path service: " + String.format("%.1f", serviceTime / 1e6) + " ms, "
+					+ serviceExpansions + " expansions, " + service.getTreeCount() + " trees, "
+					+ (service.getMemoryUsed() >> 20) + " MB, " + service.getEvictions() + " evictions");
+			System.out.println("  A* each time: " + String.format("%.1f", astarTime / 1e6) + " ms, "
+					+ astarExpansions + " expansions");
+			System.out.println("  path length mismatches: " + mismatches);
+		}
+	}
+
+	// a random floor cell within radius of (x, y) (clipped to the maze)
+	private static int[] randomFloor(Maze maze, Random random, int x, int y, int radius) {
+		while (true) {
+			int cx = Math.min(maze.width - 1, Math.max(0, x - radius + random.nextInt(2 * radius + 1)));
+			int cy = Math.min(maze.height - 1, Math.max(0, y - radius + random.nextInt(2 * radius + 1)));
+			if (maze.isLegal(cx, cy)) {
+				return new int[]{cx, cy};
+			}
+		}
+	}
+}
@@ -0,0 +1,318 @@
+package assignment_mazeworld;
+
+/**
+ * Description: a JMH-style harness for the searches in SearchProblem and
+ * InformedSearchProblem (bfs, memoizing dfs, iterative deepening, ucs, A*),
+ * over maze sizes, agent counts and maze types. JMH itself needs a build tool
+ * and annotation processing, which this project doesn't have. This harness
+ * does the parts of it that matter for these searches:
+ *  - forks: each benchmark runs in fresh JVMs, so the JIT profile of one
+ *    search doesn't slow down the next.
+ *  - warmup iterations, then timed measurement iterations. An iteration
+ *    runs the search back to back for a fixed time.
+ *  - average time per search, with a 99.9% confidence interval across the
+ *    measurement iterations.
+ *  - allocation per search, from the thread's allocated byte count (what
+ *    JMH's gc profiler reports as gc.alloc.rate.norm), plus the number of
+ *    collections and the time spent in them.
+ * One problem is built per case and searched again and again. With one
+ * agent it is a SimpleMazeProblem from corner to corner; with more, a
+ * GeneralMazeProblem set up the way MazeBenchmark does it. Cases past
+ * MazeBenchmark's size limits (which assume two agents) are skipped.
+ * Prints one csv row per case.
+ * usage: SearchBenchmark [options] [search regex]
+ *   -wi N          warmup iterations (default 3)
+ *   -i N           measurement iterations (default 5)
+ *   -r MS          milliseconds per iteration (default 1000)
+ *   -f N           forks per case (default 1; 0 runs everything in this JVM)
+ *   -p name=a,b    parameter values: size (8,16,32), agents (1,2), maze (open)
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+public class SearchBenchmark {
+
+	private static final long SEED = 76;
+
+	// two-sided 99.9% Student t quantiles for 1..30 degrees of freedom; past
+	//  that the normal one is close enough
+	private static final double[] T_999 = {636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408,
+			5.041, 4.781, 4.587, 4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883,
+			3.850, 3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646};
+	private static final double Z_999 = 3.291;
+
+	// written by every search so the JIT can't drop one
+	private static volatile int sink;
+
+	private int warmupIterations = 3;
+	private int iterations = 5;
+	private long iterationMillis = 1000;
+	private int forks = 1;
+	private Pattern filter = Pattern.compile(".*");
+	private Map<String, String[]> params = new HashMap<String, String[]>();
+
+	//================Iteration class=================
+	// what one warmup or measurement iteration saw
+	private static final class Iteration {
+		final double microsPerOp;
+		final double bytesPerOp;
+		final long gcCount;
+		final long gcMillis;
+
+		Iteration(double microsPerOp, double bytesPerOp, long gcCount, long gcMillis) {
+			this.microsPerOp = microsPerOp;
+			this.bytesPerOp = bytesPerOp;
+			this.gcCount = gcCount;
+			this.gcMillis = gcMillis;
+		}
+
+		// one line on a forked JVM's stdout
+		String format() {
+			return "ITERATION " + microsPerOp + " " + bytesPerOp + " " + gcCount + " " + gcMillis;
+		}
+
+		static Iteration parse(String line) {
+			String[] parts = line.split(" ");
+			return new Iteration(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+					Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+		}
+	}
+	//================================================
+
+	public static void main(final String args[]) throws Exception {
+		final SearchBenchmark bench = new SearchBenchmark();
+		final List<String> rest = bench.parseOptions(args);
+		// the dfs searches recurse once per step of the path
+		final Exception[] failure = new Exception[1];
+		Thread runner = new Thread(null, new Runnable() {
+			public void run() {
+				try {
+					if (!rest.isEmpty() && rest.get(0).equals("--fork")) {
+						bench.runFork(rest.get(1), rest.get(2), Integer.parseInt(rest.get(3)),
+								Integer.parseInt(rest.get(4)));
+					} else {
+						bench.runAll();
+					}
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		}, "SearchBenchmark", 1L << 29);
+		runner.start();
+		runner.join();
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+	}
+
+	// reads the options into the fields, returns what is left
+	private List<String> parseOptions(String args[]) {
+		params.put("size", new String[]{"8", "16", "32"});
+		params.put("agents", new String[]{"1", "2"});
+		params.put("maze", new String[]{"open"});
+		List<String> rest = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-wi")) {
+				warmupIterations = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-i")) {
+				iterations = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-r")) {
+				iterationMillis = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-f")) {
+				forks = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-p")) {
+				String[] param = args[++i].split("=", 2);
+				if (!params.containsKey(param[0])) {
+					throw new IllegalArgumentException("unknown parameter " + param[0]);
+				}
+				params.put(param[0], param[1].split(","));
+			} else if (args[i].equals("--fork") || !rest.isEmpty()) {
+				rest.add(args[i]);
+			} else {
+				filter = Pattern.compile(args[i]);
+			}
+		}
+		return rest;
+	}
+
+	private void runAll() throws IOException, InterruptedException {
+		System.out.println("benchmark,maze,size,agents,mode,cnt,score,error,units,"
+				+ "alloc.norm,alloc.units,gc.count,gc.millis");
+		for (String search : MazeBenchmark.ALGORITHMS) {
+			if (!filter.matcher(search).find()) {
+				continue;
+			}
+			for (String maze : params.get("maze")) {
+				for (String size : params.get("size")) {
+					for (String agents : params.get("agents")) {
+						String problem = Integer.parseInt(agents) == 1 ? "simple" : "general";
+						if (!MazeBenchmark.withinLimits(problem, search, Integer.parseInt(size))) {
+							continue;
+						}
+						System.err.println("# " + search + " maze=" + maze + " size=" + size + " agents=" + agents);
+						List<Iteration> measured = new ArrayList<Iteration>();
+						if (forks == 0) {
+							measured.addAll(measure(search, maze, Integer.parseInt(size), Integer.parseInt(agents)));
+						} else {
+							for (int f = 0; f < forks; f++) {
+								measured.addAll(fork(search, maze, size, agents));
+							}
+						}
+						report(search + "," + maze + "," + size + "," + agents, measured);
+					}
+				}
+			}
+		}
+	}
+
+	// runs one case in a fresh JVM with the same classpath and JVM flags
+	private List<Iteration> fork(String search, String maze, String size, String agents)
+			throws IOException, InterruptedException {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + "/bin/java");
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(SearchBenchmark.class.getName());
+		command.add("-wi");
+		command.add(Integer.toString(warmupIterations));
+		command.add("-i");
+		command.add(Integer.toString(iterations));
+		command.add("-r");
+		command.add(Long.toString(iterationMillis));
+		command.add("--fork");
+		command.add(search);
+		command.add(maze);
+		command.add(size);
+		command.add(agents);
+		Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+		List<Iteration> measured = new ArrayList<Iteration>();
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith("ITERATION ")) {
+					measured.add(Iteration.parse(line));
+				}
+			}
+		}
+		int status = process.waitFor();
+		if (status != 0) {
+			throw new IllegalStateException("forked benchmark " + search + " exited with " + status);
+		}
+		return measured;
+	}
+
+	private void runFork(String search, String maze, int size, int agents) {
+		for (Iteration iteration : measure(search, maze, size, agents)) {
+			System.out.println(iteration.format());
+		}
+	}
+
+	// the warmup and measurement iterations of one case in this JVM; only
+	//  the measurement ones are returned
+	private List<Iteration> measure(String search, String mazeType, int size, int agents) {
+		Maze maze = MazeGenerator.generate(MazeGenerator.Type.valueOf(mazeType.toUpperCase()), size, size, SEED);
+		InformedSearchProblem problem = (agents == 1)
+				? new SimpleMazeProblem(maze, 0, 0, size - 1, size - 1)
+				: MazeBenchmark.generalProblem(maze, agents, new Random(SEED));
+		int maxDepth = MazeBenchmark.countFloor(maze) * agents;
+
+		List<Iteration> measured = new ArrayList<Iteration>();
+		for (int i = 0; i < warmupIterations + iterations; i++) {
+			Iteration iteration = iterate(problem, search, maxDepth);
+			System.err.println(String.format("# %s %d: %.3f us/op, %.0f B/op",
+					(i < warmupIterations) ? "warmup" : "iteration",
+					(i < warmupIterations) ? i + 1 : i - warmupIterations + 1,
+					iteration.microsPerOp, iteration.bytesPerOp));
+			if (i >= warmupIterations) {
+				measured.add(iteration);
+			}
+		}
+		return measured;
+	}
+
+	// searches back to back for iterationMillis (at least once)
+	private Iteration iterate(InformedSearchProblem problem, String search, int maxDepth) {
+		long gcCount = gcCount();
+		long gcMillis = gcMillis();
+		long allocated = allocatedBytes();
+		long start = System.nanoTime();
+		long deadline = start + iterationMillis * 1000000L;
+		long ops = 0;
+		long now;
+		do {
+			List<SearchProblem.SearchNode> path = MazeBenchmark.search(problem, search, maxDepth);
+			sink += (path == null) ? -1 : path.size();
+			ops++;
+			now = System.nanoTime();
+		} while (now < deadline);
+		double bytesPerOp = (allocated < 0) ? Double.NaN : (allocatedBytes() - allocated) / (double) ops;
+		return new Iteration((now - start) / 1e3 / ops, bytesPerOp,
+				gcCount() - gcCount, gcMillis() - gcMillis);
+	}
+
+	private void report(String label, List<Iteration> measured) {
+		int n = measured.size();
+		double mean = 0;
+		double bytes = 0;
+		long gcCount = 0;
+		long gcMillis = 0;
+		for (Iteration iteration : measured) {
+			mean += iteration.microsPerOp / n;
+			bytes += iteration.bytesPerOp / n;
+			gcCount += iteration.gcCount;
+			gcMillis += iteration.gcMillis;
+		}
+		double error = Double.NaN;
+		if (n > 1) {
+			double variance = 0;
+			for (Iteration iteration : measured) {
+				variance += (iteration.microsPerOp - mean) * (iteration.microsPerOp - mean) / (n - 1);
+			}
+			double t = (n - 1 <= T_999.length) ? T_999[n - 2] : Z_999;
+			error = t * Math.sqrt(variance / n);
+		}
+		System.out.println(label + ",avgt," + n + "," + String.format("%.3f", mean) + ","
+				+ String.format("%.3f", error) + ",us/op," + String.format("%.0f", bytes) + ",B/op,"
+				+ gcCount + "," + gcMillis);
+	}
+
+	// bytes this thread has allocated so far, -1 if the JVM can't tell
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+			if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+				return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long gcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			millis += Math.max(0, gc.getCollectionTime());
+		}
+		return millis;
+	}
+}
@@ -1,5 +1,8 @@
 package assignment_mazeworld;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -15,6 +18,13 @@ public abstract class SearchProblem {
 	// see methods later in this class to update these values
 	protected int nodesExplored;
 	protected int maxMemory;
+	// informed searches only: largest frontier, and expanded states that
+	//  were queued again because a cheaper path to them turned up
+	protected int frontierPeak;
+	protected int reopenedNodes;
+	// states A* skipped because the problem said they were dominated
+	//  (see InformedSearchProblem.isDominated)
+	protected int prunedNodes;
 
 	protected SearchNode startNode;
 
@@ -87,6 +97,37 @@ public abstract class SearchProblem {
 		return null;
 	}
 
+	// breadthFirstSearch for state spaces that don't fit in the heap: the
+	//  layers and the visited set are sorted files of packed states in a
+	//  new directory under directory (see ExternalBreadthFirstSearch), and
+	//  at most memoryStates successors are held in memory at a time. Needs
+	//  a problem that is a PackedStateSpace. maxMemory is the states held in
+	//  memory; frontierPeak is the largest layer.
+	public List<SearchNode> externalBreadthFirstSearch(File directory, int memoryStates) {
+		PackedStateSpace space = requirePackedSpace();
+		resetStats();
+		try {
+			return new ExternalBreadthFirstSearch(this, space, directory, memoryStates).search();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private PackedStateSpace requirePackedSpace() {
+		if (!(this instanceof PackedStateSpace)) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " states don't pack into a long");
+		}
+		return (PackedStateSpace) this;
+	}
+
+	// problems whose states fit in a long, for externalBreadthFirstSearch.
+	//  Two nodes pack to the same long exactly when they are equal;
+	//  unpackState gives the node its cost.
+	protected interface PackedStateSpace {
+		public long packState(SearchNode node);
+		public SearchNode unpackState(long state, double cost);
+	}
+
 	// backchain should only be used by bfs, not the recursive dfs
 	protected List<SearchNode> backchain(SearchNode node,
 			HashMap<SearchNode, SearchNode> visited) {
@@ -246,6 +287,9 @@ public abstract class SearchProblem {
 	protected void resetStats() {
 		nodesExplored = 0;
 		maxMemory = 0;
+		frontierPeak = 0;
+		reopenedNodes = 0;
+		prunedNodes = 0;
 	}
 
 	protected void printStats() {
@@ -253,12 +297,51 @@ public abstract class SearchProblem {
 				+ nodesExplored);
 		System.out.println("  Maximum space usage during search "
 				+ maxMemory);
+		if (frontierPeak > 0) {
+			System.out.println("  Peak frontier size " + frontierPeak);
+			System.out.println("  Nodes reopened " + reopenedNodes);
+		}
+		if (prunedNodes > 0) {
+			System.out.println("  Nodes pruned as dominated " + prunedNodes);
+		}
 	}
 
 	protected void updateMemory(int currentMemory) {
 		maxMemory = Math.max(currentMemory, maxMemory);
 	}
 
+	protected void updateFrontier(int frontierSize) {
+		frontierPeak = Math.max(frontierSize, frontierPeak);
+	}
+
+	protected void incrementReopened() {
+		reopenedNodes++;
+	}
+
+	protected void incrementPruned() {
+		prunedNodes++;
+	}
+
+	public int getNodesExplored() {
+		return nodesExplored;
+	}
+
+	public int getMaxMemory() {
+		return maxMemory;
+	}
+
+	public int getFrontierPeak() {
+		return frontierPeak;
+	}
+
+	public int getReopenedNodes() {
+		return reopenedNodes;
+	}
+
+	public int getPrunedNodes() {
+		return prunedNodes;
+	}
+
 	protected void incrementNodeCount() {
 		nodesExplored++;
 	}
@@ -2,17 +2,29 @@ package assignment_mazeworld;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 // Find a path for a single agent to get from a start location (xStart, yStart)
 //  to a goal location (xGoal, yGoal)
 
-public class SimpleMazeProblem extends InformedSearchProblem {
+public class SimpleMazeProblem extends InformedSearchProblem implements SearchProblem.PackedStateSpace {
 
 	private static int actions[][] = {Maze.NORTH, Maze.EAST, Maze.SOUTH, Maze.WEST}; 
 	
 	private int xStart, yStart, xGoal, yGoal;
 
 	private Maze maze;
+
+	// flat-array engine for the same maze and start/goal; built on first use,
+	//  and again if the maze's walls change
+	private GridSearch grid;
+	private int gridVersion;
+
+	// true maze distances to the goal (see setTrueDistanceHeuristic); the
+	//  table is fetched again when the maze's walls change, like the grid
+	private boolean trueDistance;
+	private int[] goalDistances;
+	private int goalDistancesVersion;
 	
 	public SimpleMazeProblem(Maze m, int sx, int sy, int gx, int gy) {
 		startNode = new SimpleMazeNode(sx, sy, 0);
@@ -24,6 +36,102 @@ public class SimpleMazeProblem extends InformedSearchProblem {
 		maze = m;		
 	}
 
+	// switches the A* heuristic between manhattan distance (the default) and
+	//  the exact maze distance to the goal, from a table shared per maze and
+	//  goal (see DistanceTables)
+	public void setTrueDistanceHeuristic(boolean on) {
+		trueDistance = on;
+		goalDistances = null;
+	}
+
+	// the distance table for the maze as it is now, or null for manhattan
+	private int[] getGoalDistances() {
+		if (trueDistance && (goalDistances == null || goalDistancesVersion != maze.getVersion())) {
+			goalDistances = DistanceTables.get(maze, xGoal, yGoal);
+			goalDistancesVersion = maze.getVersion();
+		}
+		return goalDistances;
+	}
+
+	// the same searches as breadthFirstSearch / astarSearch, run by GridSearch
+	//  (no node objects during the search) and converted back to SimpleMazeNodes
+	public List<SearchNode> gridBreadthFirstSearch() {
+		GridSearch engine = getGrid();
+		return gridPath(engine.breadthFirstSearch(engine.cell(xStart, yStart), engine.cell(xGoal, yGoal)));
+	}
+
+	public List<SearchNode> gridAstarSearch() {
+		GridSearch engine = getGrid();
+		return gridPath(engine.astarSearch(engine.cell(xStart, yStart), engine.cell(xGoal, yGoal)));
+	}
+
+	// A* over jump points (see GridSearch.jumpPointSearch): same path length
+	//  as astarSearch, far fewer expansions on open maps and rooms. With
+	//  precomputed, the runs come from jump tables built once per problem
+	//  (JPS+), which pays off when the same maze is searched repeatedly.
+	public List<SearchNode> jumpPointSearch(boolean precomputed) {
+		GridSearch engine = getGrid();
+		int start = engine.cell(xStart, yStart);
+		int goal = engine.cell(xGoal, yGoal);
+		return gridPath(precomputed ? engine.jumpPointSearchPlus(start, goal) : engine.jumpPointSearch(start, goal));
+	}
+
+	// the same path as astarSearch, from a PathService shared by many
+	//  problems on this maze; nodesExplored counts the cells the service's
+	//  goal tree had to expand for this query
+	public List<SearchNode> cachedPath(PathService service) {
+		int[] cells;
+		// the service is shared between threads (see BatchSolver), and the
+		//  next query resets its count
+		synchronized (service) {
+			cells = service.path(xStart, yStart, xGoal, yGoal);
+			nodesExplored = service.getNodesExplored();
+		}
+		maxMemory = 0;
+		if (cells == null) {
+			return null;
+		}
+		ArrayList<SearchNode> path = new ArrayList<SearchNode>(cells.length);
+		for (int i = 0; i < cells.length; i++) {
+			path.add(new SimpleMazeNode(cells[i] % maze.width, cells[i] / maze.width, i));
+		}
+		return path;
+	}
+
+	private GridSearch getGrid() {
+		if (grid == null || gridVersion != maze.getVersion()) {
+			grid = new GridSearch(maze);
+			gridVersion = maze.getVersion();
+		}
+		return grid;
+	}
+
+	// copies the engine's stats into ours so printStats works as usual
+	private List<SearchNode> gridPath(int[] cells) {
+		nodesExplored = grid.getNodesExplored();
+		maxMemory = grid.getMaxMemory();
+		if (cells == null) {
+			return null;
+		}
+		ArrayList<SearchNode> path = new ArrayList<SearchNode>(cells.length);
+		for (int i = 0; i < cells.length; i++) {
+			path.add(new SimpleMazeNode(grid.xOf(cells[i]), grid.yOf(cells[i]), i));
+		}
+		return path;
+	}
+
+	// externalBreadthFirstSearch keys: the cell, numbered like GridSearch
+	@Override
+	public long packState(SearchNode node) {
+		SimpleMazeNode n = (SimpleMazeNode) node;
+		return (long) n.getY() * maze.width + n.getX();
+	}
+
+	@Override
+	public SearchNode unpackState(long state, double cost) {
+		return new SimpleMazeNode((int) (state % maze.width), (int) (state / maze.width), cost);
+	}
+
 
 	//================SimpleMazeNode class=================
 	// node class used by searches.  Searches themselves are implemented
@@ -108,6 +216,11 @@ public class SimpleMazeProblem extends InformedSearchProblem {
 
 		@Override
 		public double heuristic() {
+			int[] distances = getGoalDistances();
+			if (distances != null) {
+				int d = distances[state[1] * maze.width + state[0]];
+				return (d == DistanceTables.UNREACHABLE) ? Double.POSITIVE_INFINITY : d;
+			}
 			// manhattan distance metric for simple maze with one agent:
 			double dx = xGoal - state[0];
 			double dy = yGoal - state[1];
@@ -116,7 +229,7 @@ public class SimpleMazeProblem extends InformedSearchProblem {
 
 		@Override
 		public int compareTo(SearchNode o) {
-			return (int) Math.signum(priority() - o.priority());
+			return Double.compare(priority(), o.priority());
 		}
 		
 		@Override